@@ -0,0 +1,831 @@
+package com.hyfi.tictactoe;
+// Imports
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The AlphaBeta class implements the Minimax search with alpha-beta pruning. Replies that can no longer change the outcome of a position are skipped, so the search visits a fraction of the nodes of the plain Minimax search and still returns the same move for the computer to play.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public class AlphaBeta {
+    private static final Logger logger = LoggerFactory.getLogger(AlphaBeta.class);
+
+    // Score of a position won by the player to move, above any evaluation
+    public static final int WIN_SCORE = Board.MAX_EVALUATION + 1;
+    // Score of a drawn position
+    public static final int DRAW_SCORE = 0;
+    // Bound beyond any score
+    private static final int INFINITY = WIN_SCORE + 1;
+    // Number of killer moves kept per ply
+    private static final int KILLER_SLOTS = 2;
+    // History scores are halved once one grows past this
+    private static final int HISTORY_LIMIT = 1 << 24;
+    // The limits are checked every LIMIT_CHECK_INTERVAL + 1 nodes
+    private static final int LIMIT_CHECK_INTERVAL = 1023;
+    // Thrown to unwind the search once a limit is reached
+    private static final SearchAbortedException ABORTED = new SearchAbortedException();
+
+    private Board board;
+    // The order the empty cells are expanded in
+    private MoveOrdering moveOrdering = MoveOrdering.CENTER_CORNER_FIRST;
+    // The win lines of the board shape the tables below were built for
+    private LineTable lineTable;
+    // The number of columns of that board
+    private int columns;
+    // One point per cell indexed by subscript (row * columns + col)
+    private Point[] cells;
+    // Cell subscripts sorted center/corner first
+    private int[] staticOrder;
+    // Move buffers, one per ply
+    private int[][] moveBuffer;
+    // The best move found at each ply by the last search, -1 if none
+    private int[] bestAtPly;
+    // The last moves that caused a cutoff at each ply, -1 if none
+    private int[][] killers;
+    // How much each cell caused cutoffs, indexed by subscript
+    private int[] history;
+    // Number of empty cells at the start of the last search
+    private int lastEmptyCells = -1;
+    // Cache of searched positions, null to search without one
+    private TranspositionTable table;
+    // Share results between rotations/reflections of a position
+    private boolean symmetryReduction = true;
+    // Number of places the root moves after the first are rotated by
+    private int rootRotation;
+    // Search the moves after the first with a null window (PVS/NegaScout)
+    private boolean principalVariationSearch;
+    // Triangular principal variation table: pv[ply] holds the best line from
+    // ply on, pvLength[ply] is the ply it ends at
+    private int[][] pv;
+    private int[] pvLength;
+    // Cell permutations of the rotations/reflections of the board
+    private int[][] symmetries;
+    private int[][] inverseSymmetries;
+    // Search limits: a System.nanoTime deadline, a node budget and a stop request
+    private long deadline = Long.MAX_VALUE;
+    private long nodeLimit = Long.MAX_VALUE;
+    private volatile boolean stopRequested;
+    // Result of the last depth-limited search
+    private boolean aborted;
+    private int rootBestMove = -1;
+    private int rootBestScore;
+    private int rootMovesSearched;
+    // Search statistics of the last search
+    private long nodeCount;
+    private long cutoffCount;
+    private long skippedMoveCount;
+
+    /**
+     * Initialize alpha-beta algorithm with a game board
+     * @param board the current game board
+     */
+    public AlphaBeta(Board board) {
+        this(board, new TranspositionTable());
+    }
+    /**
+     * Initialize alpha-beta algorithm with a game board and the
+     * transposition table it searches with
+     * @param board the current game board
+     * @param table the transposition table, null to search without one
+     */
+    public AlphaBeta(Board board, TranspositionTable table) {
+        logger.debug("Constructor init...");
+        this.board = board;
+        this.table = table;
+    }
+    /**
+     * Set the game board
+     * @param board the game board
+     */
+    public void setGameBoard(Board board) {
+        this.board = board;
+    }
+    /**
+     * Sets the order the empty cells are expanded in
+     * @param moveOrdering the move ordering
+     */
+    public void setMoveOrdering(MoveOrdering moveOrdering) {
+        this.moveOrdering = moveOrdering;
+    }
+    /**
+     * Gets the order the empty cells are expanded in
+     * @return the move ordering
+     */
+    public MoveOrdering getMoveOrdering() {
+        return moveOrdering;
+    }
+    /**
+     * Sets the transposition table shared by the searches
+     * @param table the transposition table, null to search without one
+     */
+    public void setTranspositionTable(TranspositionTable table) {
+        this.table = table;
+    }
+    /**
+     * Gets the transposition table shared by the searches
+     * @return the transposition table, null if none
+     */
+    public TranspositionTable getTranspositionTable() {
+        return table;
+    }
+    /**
+     * Turns sharing results between rotations and reflections of a position
+     * on or off. When on, the transposition table is keyed by the canonical
+     * form of the position and symmetric root moves are searched once.
+     * @param symmetryReduction true to reduce by symmetry
+     */
+    public void setSymmetryReduction(boolean symmetryReduction) {
+        this.symmetryReduction = symmetryReduction;
+    }
+    /**
+     * Rotates the order of the root moves of the depth-limited search, after
+     * the first move, so helper threads start in different parts of the tree.
+     * @param rootRotation the number of places to rotate by
+     */
+    public void setRootRotation(int rootRotation) {
+        this.rootRotation = rootRotation;
+    }
+    /**
+     * Turns principal variation search on or off. When on, only the first
+     * move of a position gets the full window; the others are searched with
+     * a null window that only proves them worse, and are searched again with
+     * the full window when the proof fails.
+     * @param principalVariationSearch true for PVS, false for plain alpha-beta
+     */
+    public void setPrincipalVariationSearch(boolean principalVariationSearch) {
+        this.principalVariationSearch = principalVariationSearch;
+    }
+    /**
+     * Checks if the moves after the first are searched with a null window
+     * @return true for PVS
+     */
+    public boolean isPrincipalVariationSearch() {
+        return principalVariationSearch;
+    }
+    /**
+     * Gets the principal variation of the last depth-limited search: the
+     * best root move followed by the best replies as far as they are known.
+     * @return the cell subscripts of the line, empty if no root move finished
+     */
+    public int[] getPrincipalVariation() {
+        if (pv == null || rootBestMove < 0)
+            return new int[0];
+        return Arrays.copyOf(pv[0], pvLength[0]);
+    }
+    /**
+     * Checks if results are shared between rotations and reflections
+     * @return true if the search reduces by symmetry
+     */
+    public boolean isSymmetryReduction() {
+        return symmetryReduction;
+    }
+    /**
+     * Gets the number of positions visited by the last search
+     * @return the node count
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+    /**
+     * Gets the number of beta cutoffs of the last search
+     * @return the cutoff count
+     */
+    public long getCutoffCount() {
+        return cutoffCount;
+    }
+    /**
+     * Gets the number of moves the last search skipped without searching
+     * them: the moves after a cutoff, the root moves symmetric to a searched
+     * one and the root moves after the first win. It counts moves, not the
+     * nodes below them; compare getNodeCount with Minimax.getNodeCount on
+     * the same position for the nodes saved.
+     * @return the skipped move count
+     */
+    public long getSkippedMoveCount() {
+        return skippedMoveCount;
+    }
+    /**
+     * The search method runs the alpha-beta search for the player to move
+     * and assigns the best move to the game board as the computer move.
+     * The move is chosen by the same rule as Minimax: the first winning
+     * cell in row-major order, otherwise the last drawing cell.
+     * @param player	The mark of the player to move.
+     * @return			WIN_SCORE for a win, DRAW_SCORE for a draw or -WIN_SCORE for a loss.
+     */
+    public int search(char player) {
+        newSearch();
+        char opponent = opponentOf(player);
+        if (board.hasPlayerWon(player))
+            return WIN_SCORE;
+        else if (board.hasPlayerWon(opponent))
+            return -WIN_SCORE;
+        int emptyCells = beginSearch();
+        if (emptyCells == 0)
+            return DRAW_SCORE;
+
+        int count = orderMoves(0, -1);
+        int[] scores = new int[cells.length];
+        boolean[] searched = new boolean[cells.length];
+        // Symmetric root moves share the score of the lowest move of their class
+        int[] representative = symmetryReduction ? Symmetry.representativeMoves(board) : null;
+        // Lowest subscript of a known winning move
+        int firstWin = Integer.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            int sub = moveBuffer[0][i];
+            // A win later in row-major order can not replace the first win
+            if (sub > firstWin || (representative != null && representative[sub] != sub)) {
+                skippedMoveCount++;
+                continue;
+            }
+            // Once a win is known only the question "does this move win?" is left
+            int alpha = firstWin == Integer.MAX_VALUE ? -WIN_SCORE : DRAW_SCORE;
+            scores[sub] = searchChild(sub, player, opponent, emptyCells, alpha, WIN_SCORE, 0, emptyCells);
+            searched[sub] = true;
+            if (scores[sub] >= WIN_SCORE && sub < firstWin)
+                firstWin = sub;
+        }
+        if (representative != null) {
+            for (int sub = 0; sub < cells.length; sub++) {
+                if (representative[sub] >= 0 && representative[sub] != sub) {
+                    scores[sub] = scores[representative[sub]];
+                    searched[sub] = searched[representative[sub]];
+                }
+            }
+        }
+
+        int best = selectMove(scores, searched);
+        int value = scores[best];
+        bestAtPly[0] = best;
+        board.setComputerMove(cells[best]);
+        logStatistics(value, best);
+        return value;
+    }
+    /**
+     * Picks the root move by the Minimax rule: the first winning cell in
+     * row-major order, otherwise the last drawing cell. Evaluated moves of a
+     * depth-limited search are ranked like draws, the last cell of the best
+     * score is played. When every move loses the first cell in row-major
+     * order is played.
+     * @param scores	The exact score of every searched root move, indexed by subscript
+     * @param searched	The root moves that were searched
+     * @return			The subscript of the chosen move, -1 if no move was searched
+     */
+    static int selectMove(int[] scores, boolean[] searched) {
+        int best = -1;
+        int first = -1;
+        for (int sub = 0; sub < scores.length; sub++) {
+            if (!searched[sub])
+                continue;
+            if (scores[sub] >= WIN_SCORE)
+                return sub;
+            if (best < 0 || scores[sub] >= scores[best])
+                best = sub;
+            if (first < 0)
+                first = sub;
+        }
+        return best >= 0 && scores[best] > -WIN_SCORE ? best : first;
+    }
+    /**
+     * Scores the current position for the player to move with a full
+     * search window, without choosing a move.
+     * @param toMove	The mark of the player to move.
+     * @param depth		The number of plies to look ahead.
+     * @return			The score of the position for the player to move.
+     */
+    public int score(char toMove, int depth) {
+        char other = opponentOf(toMove);
+        int emptyCells = beginSearch();
+        if (board.hasPlayerWon(toMove))
+            return WIN_SCORE;
+        else if (board.hasPlayerWon(other))
+            return -WIN_SCORE;
+        else if (emptyCells == 0)
+            return DRAW_SCORE;
+        return negamax(toMove, other, emptyCells, -INFINITY, INFINITY, 0, depth);
+    }
+    /**
+     * Runs one depth-limited alpha-beta search for the player to move.
+     * Positions at the depth limit score by the board's open-line
+     * evaluation. The root moves are searched best-first starting with the
+     * given move, and the best root move is kept up to date after each one,
+     * so an aborted search still leaves the best move among the root moves
+     * it finished.
+     * The statistics are not reset, call resetStatistics between moves.
+     * @param player	The mark of the player to move.
+     * @param depth		The number of plies to look ahead.
+     * @param firstMove	The root move to search first, -1 for none.
+     * @return			The score of the best root move, undefined if aborted.
+     */
+    public int search(char player, int depth, int firstMove) {
+        return search(player, depth, firstMove, -INFINITY, INFINITY);
+    }
+    /**
+     * Runs one depth-limited alpha-beta search for the player to move
+     * inside an aspiration window. A result at or below alpha is only an
+     * upper bound and a result at or above beta only a lower bound, the
+     * caller searches again with a wider window in both cases.
+     * @param player	The mark of the player to move.
+     * @param depth		The number of plies to look ahead.
+     * @param firstMove	The root move to search first, -1 for none.
+     * @param alpha		The lower bound of the window.
+     * @param beta		The upper bound of the window.
+     * @return			The score of the best root move, undefined if aborted.
+     */
+    public int search(char player, int depth, int firstMove, int alpha, int beta) {
+        aborted = false;
+        rootBestMove = -1;
+        rootBestScore = -INFINITY;
+        rootMovesSearched = 0;
+        char opponent = opponentOf(player);
+        int emptyCells = beginSearch();
+        if (emptyCells == 0 || board.hasPlayerWon(player) || board.hasPlayerWon(opponent))
+            return DRAW_SCORE;
+
+        int count = orderMoves(0, firstMove);
+        if (rootRotation > 0 && count > 2)
+            rotateRootMoves(count, firstMove >= 0 && moveBuffer[0][0] == firstMove ? 1 : 0);
+        int[] representative = symmetryReduction ? Symmetry.representativeMoves(board) : null;
+        pvLength[0] = 0;
+        try {
+            for (int i = 0; i < count; i++) {
+                int sub = moveBuffer[0][i];
+                if (representative != null && representative[sub] != sub) {
+                    skippedMoveCount++;
+                    continue;
+                }
+                int score = searchMove(sub, player, opponent, emptyCells, alpha, beta, 0, depth, rootMovesSearched == 0);
+                rootMovesSearched++;
+                if (score > rootBestScore) {
+                    rootBestScore = score;
+                    rootBestMove = sub;
+                    updatePrincipalVariation(0, sub);
+                }
+                if (score > alpha)
+                    alpha = score;
+                // Nothing beats a win, and a fail high is left to the caller
+                if (alpha >= WIN_SCORE || alpha >= beta)
+                    break;
+            }
+        } catch (SearchAbortedException e) {
+            aborted = true;
+        }
+        if (rootBestMove >= 0)
+            bestAtPly[0] = rootBestMove;
+        return rootBestScore;
+    }
+    /**
+     * Plays a move, scores the resulting position for the mover and
+     * takes the move back.
+     * @param sub		The subscript of the cell to play
+     * @param mover		The mark of the player making the move
+     * @param other		The mark of the other player
+     * @param emptyCells	The empty cells before the move
+     * @param alpha		The score the mover is already assured of
+     * @param beta		The score the other player is already assured of
+     * @param ply		The distance from the root
+     * @param depth		The plies left to look ahead, including this move
+     * @return			The score of the move for the mover
+     */
+    private int searchChild(int sub, char mover, char other, int emptyCells, int alpha, int beta, int ply, int depth) {
+        if ((++nodeCount & LIMIT_CHECK_INTERVAL) == 0)
+            checkLimits();
+        board.makeMove(cells[sub], mover);
+        try {
+            pvLength[ply + 1] = ply + 1;
+            if (board.isWinningMove(cells[sub]))
+                return WIN_SCORE;
+            else if (emptyCells == 1)
+                return DRAW_SCORE;
+            else if (depth <= 1)
+                return board.getEvaluation(mover);
+            else
+                return -negamax(other, mover, emptyCells - 1, -beta, -alpha, ply + 1, depth - 1);
+        } finally {
+            board.unmakeMove();
+        }
+    }
+    /**
+     * Scores a move inside the window. With principal variation search
+     * every move but the first is tried with a null window around alpha
+     * first, and only searched with the full window when it beats alpha.
+     * @param sub		The subscript of the cell to play
+     * @param mover		The mark of the player making the move
+     * @param other		The mark of the other player
+     * @param emptyCells	The empty cells before the move
+     * @param alpha		The score the mover is already assured of
+     * @param beta		The score the other player is already assured of
+     * @param ply		The distance from the root
+     * @param depth		The plies left to look ahead, including this move
+     * @param first		True for the first move of the position
+     * @return			The score of the move for the mover
+     */
+    private int searchMove(int sub, char mover, char other, int emptyCells, int alpha, int beta, int ply, int depth,
+            boolean first) {
+        if (!principalVariationSearch || first || beta - alpha <= 1)
+            return searchChild(sub, mover, other, emptyCells, alpha, beta, ply, depth);
+        int score = searchChild(sub, mover, other, emptyCells, alpha, alpha + 1, ply, depth);
+        if (score > alpha && score < beta)
+            score = searchChild(sub, mover, other, emptyCells, alpha, beta, ply, depth);
+        return score;
+    }
+    /**
+     * Makes a move the head of the principal variation of a ply, followed
+     * by the line found below it
+     * @param ply	The distance from the root
+     * @param sub	The subscript of the best move
+     */
+    private void updatePrincipalVariation(int ply, int sub) {
+        pv[ply][ply] = sub;
+        int end = pvLength[ply + 1];
+        System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, end - (ply + 1));
+        pvLength[ply] = end;
+    }
+    /**
+     * The negamax method scores the position for the player to move.
+     * Replies are skipped as soon as one of them scores at least beta.
+     * @param toMove	The mark of the player to move
+     * @param other		The mark of the other player
+     * @param emptyCells	The empty cells of the position
+     * @param alpha		The lower bound of the search window
+     * @param beta		The upper bound of the search window
+     * @param ply		The distance from the root
+     * @param depth		The plies left to look ahead
+     * @return			The score of the position for the player to move
+     */
+    private int negamax(char toMove, char other, int emptyCells, int alpha, int beta, int ply, int depth) {
+        pvLength[ply] = ply;
+        // The search can not look further ahead than the end of the game
+        int draft = Math.min(depth, emptyCells);
+        int hashMove = -1;
+        long key = 0L;
+        int transform = Symmetry.IDENTITY;
+        int alphaOrig = alpha;
+        if (table != null) {
+            if (symmetryReduction) {
+                transform = board.getCanonicalTransform();
+                key = board.getSymmetryHash(transform, toMove);
+            } else
+                key = board.getZobristHash(toMove);
+            long entry = table.probe(key);
+            if (entry != TranspositionTable.MISS) {
+                // Moves are stored in the coordinates of the canonical form
+                hashMove = TranspositionTable.moveOf(entry);
+                if (hashMove >= 0)
+                    hashMove = inverseSymmetries[transform][hashMove];
+                if (TranspositionTable.depthOf(entry) >= draft) {
+                    int score = TranspositionTable.scoreOf(entry);
+                    int bound = TranspositionTable.boundOf(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                            || (bound == TranspositionTable.UPPER_BOUND && score <= alpha))
+                        return score;
+                }
+            }
+        }
+        int count = orderMoves(ply, hashMove);
+        int best = -INFINITY;
+        int bestSub = -1;
+        for (int i = 0; i < count; i++) {
+            int sub = moveBuffer[ply][i];
+            int score = searchMove(sub, toMove, other, emptyCells, alpha, beta, ply, draft, i == 0);
+            if (score > best) {
+                best = score;
+                bestSub = sub;
+                if (score > alpha)
+                    updatePrincipalVariation(ply, sub);
+            }
+            if (best > alpha)
+                alpha = best;
+            if (alpha >= beta) {
+                cutoffCount++;
+                recordCutoff(ply, sub, draft);
+                skippedMoveCount += count - i - 1;
+                break;
+            }
+        }
+        bestAtPly[ply] = bestSub;
+        if (table != null) {
+            int bound = best <= alphaOrig ? TranspositionTable.UPPER_BOUND
+                : best >= beta ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT;
+            // A proven win or loss holds at any depth
+            boolean proven = (best >= WIN_SCORE && bound != TranspositionTable.UPPER_BOUND)
+                || (best <= -WIN_SCORE && bound != TranspositionTable.LOWER_BOUND);
+            table.store(key, proven ? TranspositionTable.MAX_DEPTH : draft, best, bound,
+                bestSub < 0 ? -1 : symmetries[transform][bestSub]);
+        }
+        return best;
+    }
+    /**
+     * Limits the following searches. A search that reaches a limit unwinds
+     * and reports itself as aborted.
+     * @param deadline	The System.nanoTime value to stop at, Long.MAX_VALUE for none
+     * @param nodeLimit	The node count to stop at, Long.MAX_VALUE for none
+     */
+    public void setLimits(long deadline, long nodeLimit) {
+        this.deadline = deadline;
+        this.nodeLimit = nodeLimit;
+    }
+    /**
+     * Removes the limits set by setLimits
+     */
+    public void clearLimits() {
+        setLimits(Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+    /**
+     * Asks a running search to stop. May be called from any thread, the
+     * search notices the request within a few thousand nodes.
+     */
+    public void stop() {
+        this.stopRequested = true;
+    }
+    /**
+     * Withdraws a stop request. Called by the thread that starts a new
+     * search before it runs, so a stop that arrives in between is kept.
+     */
+    public void clearStop() {
+        this.stopRequested = false;
+    }
+    /**
+     * Checks if the last depth-limited search was stopped by a limit
+     * @return true if the search was aborted
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+    /**
+     * Gets the best root move of the last depth-limited search
+     * @return the subscript of the best root move, -1 if no root move finished
+     */
+    public int getRootBestMove() {
+        return rootBestMove;
+    }
+    /**
+     * Gets the score of the best root move of the last depth-limited search
+     * @return the score of the best root move
+     */
+    public int getRootBestScore() {
+        return rootBestScore;
+    }
+    /**
+     * Gets the number of root moves the last depth-limited search finished
+     * @return the number of root moves searched
+     */
+    public int getRootMovesSearched() {
+        return rootMovesSearched;
+    }
+    /**
+     * Gets the point of a cell
+     * @param sub	The subscript of the cell
+     * @return		The point of the cell
+     */
+    public Point getCell(int sub) {
+        prepare();
+        return cells[sub];
+    }
+    /**
+     * Resets the node, cutoff and skipped move counters
+     */
+    public void resetStatistics() {
+        nodeCount = 1;
+        cutoffCount = 0;
+        skippedMoveCount = 0;
+    }
+    /**
+     * Resets the statistics and starts a new transposition table generation.
+     * Called once per computer move by the search that owns the table.
+     */
+    public void newSearch() {
+        resetStatistics();
+        if (table != null) {
+            table.newSearch();
+            table.resetStatistics();
+        }
+    }
+    /**
+     * Logs the statistics of the last search
+     * @param value	The value of the position
+     * @param best	The subscript of the chosen move
+     */
+    public void logStatistics(int value, int best) {
+        logger.debug("Alpha-beta searched {} nodes | Cutoffs: {} | Skipped moves: {} | Value: {} | Point: {}",
+            nodeCount, cutoffCount, skippedMoveCount, value, best < 0 ? null : cells[best]);
+        if (table != null)
+            logger.debug("Transposition table hit rate: {} | Probes: {} | Evictions: {} | Memory: {} bytes",
+                table.getHitRate(), table.getProbeCount(), table.getEvictionCount(), table.getMemoryFootprint());
+    }
+    /**
+     * Prepares the tables for the current board and counts its empty cells
+     * @return the number of empty cells
+     */
+    private int beginSearch() {
+        prepare();
+        int emptyCells = board.getEmptyCellCount();
+        shiftPreviousBest(emptyCells);
+        return emptyCells;
+    }
+    /**
+     * Throws ABORTED once a limit is reached or a stop was requested
+     */
+    private void checkLimits() {
+        if (stopRequested || nodeCount >= nodeLimit || System.nanoTime() >= deadline)
+            throw ABORTED;
+    }
+    /**
+     * Gets the mark of the other player
+     * @param player	The mark of one player
+     * @return			The mark of the other player
+     */
+    private char opponentOf(char player) {
+        return player == board.getComputerMark() ? board.getHumanMark() : board.getComputerMark();
+    }
+    /**
+     * Fills the move buffer of the ply with the candidate moves of the board
+     * in search order. The move stored in the transposition table is tried
+     * first.
+     * @param ply	The distance from the root
+     * @param hashMove	The best move from the transposition table, -1 if none
+     * @return		The number of moves in the buffer
+     */
+    private int orderMoves(int ply, int hashMove) {
+        char[][] gameBoard = board.getGameBoard();
+        int[] moves = moveBuffer[ply];
+        int count = 0;
+        int first = -1;
+        if (hashMove >= 0 || moveOrdering == MoveOrdering.PREVIOUS_BEST_FIRST
+                || moveOrdering == MoveOrdering.KILLER_HISTORY) {
+            first = hashMove >= 0 ? hashMove : bestAtPly[ply];
+            if (first >= 0 && gameBoard[first / columns][first % columns] == board.getNoPlayer())
+                moves[count++] = first;
+            else
+                first = -1;
+        }
+        if (moveOrdering == MoveOrdering.KILLER_HISTORY)
+            return orderByKillersAndHistory(ply, first, count);
+        for (int i = 0; i < staticOrder.length; i++) {
+            int sub = moveOrdering == MoveOrdering.ROW_MAJOR ? i : staticOrder[i];
+            if (sub != first && board.isCandidate(sub))
+                moves[count++] = sub;
+        }
+        return count;
+    }
+    /**
+     * Fills the rest of the move buffer of the ply with the killer moves of
+     * the ply, followed by the other empty cells by descending history score.
+     * Cells with the same score keep the center/corner order.
+     * @param ply	The distance from the root
+     * @param first	The move already in the buffer, -1 if none
+     * @param count	The number of moves already in the buffer
+     * @return		The number of moves in the buffer
+     */
+    private int orderByKillersAndHistory(int ply, int first, int count) {
+        char[][] gameBoard = board.getGameBoard();
+        int[] moves = moveBuffer[ply];
+        int[] killer = killers[ply];
+        for (int k = 0; k < KILLER_SLOTS; k++) {
+            int sub = killer[k];
+            if (sub >= 0 && sub != first && gameBoard[sub / columns][sub % columns] == board.getNoPlayer())
+                moves[count++] = sub;
+        }
+        int sorted = count;
+        for (int sub : staticOrder) {
+            if (sub == first || sub == killer[0] || sub == killer[1] || !board.isCandidate(sub))
+                continue;
+            // Insertion sort, the buffer never holds more than one board of cells
+            int i = count++;
+            while (i > sorted && history[moves[i - 1]] < history[sub]) {
+                moves[i] = moves[i - 1];
+                i--;
+            }
+            moves[i] = sub;
+        }
+        return count;
+    }
+    /**
+     * Learns from a move that caused a cutoff: it becomes the first killer
+     * move of the ply and its history score grows with the depth it was
+     * searched to, so cutoffs near the root count more.
+     * @param ply	The distance from the root
+     * @param sub	The subscript of the move
+     * @param depth	The plies searched below the move
+     */
+    private void recordCutoff(int ply, int sub, int depth) {
+        int[] killer = killers[ply];
+        if (killer[0] != sub) {
+            killer[1] = killer[0];
+            killer[0] = sub;
+        }
+        history[sub] += depth * depth;
+        if (history[sub] > HISTORY_LIMIT) {
+            for (int cell = 0; cell < history.length; cell++)
+                history[cell] >>= 1;
+        }
+    }
+    /**
+     * Rotates the root moves in the move buffer by rootRotation places
+     * @param count	The number of root moves
+     * @param from	The index of the first move to rotate
+     */
+    private void rotateRootMoves(int count, int from) {
+        int[] moves = moveBuffer[0];
+        int length = count - from;
+        int shift = rootRotation % length;
+        if (shift == 0)
+            return;
+        int[] rotated = Arrays.copyOfRange(moves, from, count);
+        for (int i = 0; i < length; i++)
+            moves[from + i] = rotated[(i + shift) % length];
+    }
+    /**
+     * Moves the best moves and killer moves of the previous search up by the
+     * number of moves played since, so the expected replies are tried first
+     * again, and halves the history scores so recent cutoffs weigh more.
+     * A new game clears all of them.
+     * @param emptyCells	The empty cells at the start of this search
+     */
+    private void shiftPreviousBest(int emptyCells) {
+        int played = lastEmptyCells - emptyCells;
+        lastEmptyCells = emptyCells;
+        if (played <= 0) {
+            if (played < 0) {
+                Arrays.fill(bestAtPly, -1);
+                for (int[] killer : killers)
+                    Arrays.fill(killer, -1);
+                Arrays.fill(history, 0);
+            }
+            return;
+        }
+        for (int ply = 0; ply < bestAtPly.length; ply++) {
+            boolean kept = ply + played < bestAtPly.length;
+            bestAtPly[ply] = kept ? bestAtPly[ply + played] : -1;
+            killers[ply][0] = kept ? killers[ply + played][0] : -1;
+            killers[ply][1] = kept ? killers[ply + played][1] : -1;
+        }
+        for (int sub = 0; sub < history.length; sub++)
+            history[sub] >>= 1;
+    }
+    /**
+     * Builds the cell and ordering tables when the board shape changes.
+     */
+    private void prepare() {
+        LineTable lines = board.getLineTable();
+        if (cells != null && lines == lineTable)
+            return;
+        lineTable = lines;
+        int rows = board.getRowCount();
+        columns = board.getColumnCount();
+        int n = rows * columns;
+        cells = new Point[n];
+        List<Integer> order = new ArrayList<>();
+        for (int sub = 0; sub < n; sub++) {
+            cells[sub] = board.getPoint(sub);
+            order.add(sub);
+        }
+        order.sort((a, b) -> {
+            int byLines = lines.getLinesThrough(b).length - lines.getLinesThrough(a).length;
+            if (byLines != 0)
+                return byLines;
+            int byDistance = distanceToCenter(a, rows, columns) - distanceToCenter(b, rows, columns);
+            return byDistance != 0 ? byDistance : a - b;
+        });
+        staticOrder = new int[n];
+        for (int i = 0; i < n; i++)
+            staticOrder[i] = order.get(i);
+        symmetries = Symmetry.permutations(rows, columns);
+        inverseSymmetries = Symmetry.inverses(rows, columns);
+        moveBuffer = new int[n + 1][n];
+        pv = new int[n + 2][n + 1];
+        pvLength = new int[n + 2];
+        bestAtPly = new int[n + 1];
+        Arrays.fill(bestAtPly, -1);
+        killers = new int[n + 1][KILLER_SLOTS];
+        for (int[] killer : killers)
+            Arrays.fill(killer, -1);
+        history = new int[n];
+        lastEmptyCells = -1;
+    }
+    /**
+     * Gets the doubled Manhattan distance of a cell to the center of the board
+     * @param sub		The subscript of the cell
+     * @param rows		The number of rows
+     * @param columns	The number of columns
+     * @return			The distance to the center
+     */
+    private static int distanceToCenter(int sub, int rows, int columns) {
+        return Math.abs(2 * (sub / columns) - (rows - 1)) + Math.abs(2 * (sub % columns) - (columns - 1));
+    }
+    /**
+     * Unwinds the search once a limit is reached. A single instance without
+     * a stack trace is reused, so aborting costs no allocation.
+     */
+    private static class SearchAbortedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        SearchAbortedException() {
+            super("Search aborted", null, false, false);
+        }
+    }
+}
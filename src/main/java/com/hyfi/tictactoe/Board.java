@@ -5,6 +5,9 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.*;
 
 
@@ -36,8 +39,81 @@ public class Board {
     private int depth;
     // holds the size of the board
     private int boardSize;
+    // The number of columns, the same as boardSize on a square board
+    private int columns;
+    // The number of marks in a row that wins, 0 for the shorter side of the board
+    private int winLength;
     // holds the last move played
     private List<Point> lastMove = new ArrayList<Point>();
+    // Largest board size that fits in a single long bitboard (8x8 = 64 cells);
+    // rectangular boards are backed by bitboards up to 64 cells.
+    public static final int MAX_BITBOARD_SIZE = 8;
+    // Winning lines of the current board size and the lines through each cell.
+    private LineTable lineTable;
+    // Shared points of the current board shape, indexed by subscript
+    private Point[] points;
+    // Bitboards of the X and O marks; bit (row * boardSize + col) is set when occupied.
+    private long xBits;
+    private long oBits;
+    // Zobrist keys per number of cells, two keys (X, O) per cell subscript.
+    private static final Map<Integer, long[]> ZOBRIST_KEYS = new ConcurrentHashMap<>();
+    // Zobrist key XORed in when O is the player to move.
+    public static final long ZOBRIST_SIDE_KEY = 0x9E3779B97F4A7C15L;
+    // Zobrist keys of the current board size.
+    private long[] zobrist;
+    // Zobrist hash of the marks on the board, updated on every placed or removed move.
+    private long zobristHash;
+    // Cell permutations of the rotations and reflections of the board.
+    private int[][] symmetries;
+    // Zobrist hash of each rotation/reflection of the board, updated with zobristHash.
+    private final long[] symmetryHashes = new long[Symmetry.TRANSFORMS];
+    // Number of X marks (index 0) and O marks (index 1) on each winning line.
+    private int[][] lineCounts;
+    // Largest absolute value of getEvaluation, below any won score.
+    public static final int MAX_EVALUATION = (1 << 30) - 1;
+    // Value of an open line (marks of one player only) by its number of marks:
+    // each mark is worth 8 times the one before, up to 2^27.
+    private static final long[] LINE_WEIGHTS = new long[11];
+    static {
+        for (int marks = 1; marks < LINE_WEIGHTS.length; marks++)
+            LINE_WEIGHTS[marks] = 1L << (3 * (marks - 1));
+    }
+    // Sum of the X open lines minus the O open lines, updated with lineCounts.
+    private long evaluation;
+    // Empty cell subscripts in the first emptyCount entries, and the index of
+    // every cell in that array; cells are swapped in and out in O(1).
+    private int[] emptyCells;
+    private int[] emptyIndex;
+    private int emptyCount;
+    // Largest number of cells whose base-3 position index fits in an int (4x4).
+    public static final int MAX_INDEXED_CELLS = 16;
+    // Powers of three, the weight of each cell in the position index.
+    private static final int[] POWERS_OF_THREE = new int[MAX_INDEXED_CELLS];
+    static {
+        POWERS_OF_THREE[0] = 1;
+        for (int i = 1; i < MAX_INDEXED_CELLS; i++)
+            POWERS_OF_THREE[i] = POWERS_OF_THREE[i - 1] * 3;
+    }
+    // Base-3 index of the position: the sum of mark * 3^sub with 1 for X and
+    // 2 for O, only kept for boards of up to MAX_INDEXED_CELLS cells.
+    private int positionIndex;
+    // Cell subscripts of the moves made with makeMove, most recent last.
+    private int[] undoStack;
+    private int undoCount;
+    // Cells within a radius of each cell, per board shape and radius.
+    private static final Map<List<Integer>, int[][]> NEIGHBORHOODS = new ConcurrentHashMap<>();
+    // Candidate moves are the empty cells within this many rows and columns
+    // of a mark, 0 to make every empty cell a candidate.
+    private int candidateRadius;
+    // Cells within candidateRadius of each cell, null while candidateRadius is 0.
+    private int[][] neighborhood;
+    // Number of marks within candidateRadius of each cell.
+    private int[] nearbyMarks;
+    // Candidate cells in the first candidateCount entries, and the index of
+    // every cell in that array, kept like the empty-cell set.
+    private int[] candidates;
+    private int[] candidateIndex;
+    private int candidateCount;
 
     /**
      * The Board method is the Default constructor.
@@ -50,11 +126,386 @@ public class Board {
      * @param gameBoard the game board passed to a new instance of Board
      */
     public Board(char[][] gameBoard){
+        this(gameBoard, 0);
+    }
+    /**
+     * Constructor accepts a game board of any number of rows and columns
+     * and the number of marks in a row that wins, the (m,n,k) game
+     * @param gameBoard the game board passed to a new instance of Board, rows of equal length
+     * @param winLength the number of marks in a row that wins, 0 for the shorter side of the board
+     * @throws IllegalArgumentException if no line of winLength fits on the board
+     */
+    public Board(char[][] gameBoard, int winLength){
 
         this.gameBoard = setupGameBrd(gameBoard);
         this.boardSize = this.gameBoard.length;
+        this.winLength = winLength;
+        syncDerivedState();
         logger.debug("Parameterized constructor...");
     }
+    /**
+     * Copy constructor, the copy has its own game board so moves placed on
+     * it do not affect the original.
+     * @param board the board to copy
+     */
+    public Board(Board board) {
+        char[][] copy = new char[board.gameBoard.length][];
+        for (int i = 0; i < copy.length; i++)
+            copy[i] = board.gameBoard[i].clone();
+        this.gameBoard = copy;
+        this.boardSize = board.boardSize;
+        this.winLength = board.winLength;
+        this.candidateRadius = board.candidateRadius;
+        this.computerMark = board.computerMark;
+        this.humanMark = board.humanMark;
+        this.round = board.round;
+        syncDerivedState();
+        logger.debug("Copy constructor...");
+    }
+    /**
+     * Checks if the current board is small enough to be backed by bitboards.
+     * @return true if win checks run on the bitboards
+     */
+    public boolean isBitboardBacked() {
+        return gameBoard != null && gameBoard.length >= 1 && gameBoard.length * columns <= Long.SIZE;
+    }
+    /**
+     * Gets the Zobrist keys of a board with the given number of cells. The keys
+     * come from a fixed seed, so a position hashes the same on every run.
+     * @param cells the number of cells on the board
+     * @return two keys per cell subscript, the X key followed by the O key
+     */
+    private static long[] zobristKeys(int cells) {
+        return ZOBRIST_KEYS.computeIfAbsent(cells, n -> {
+            SplittableRandom random = new SplittableRandom(0x5DEECE66DL + n);
+            long[] keys = new long[2 * n];
+            for (int i = 0; i < keys.length; i++)
+                keys[i] = random.nextLong();
+            return keys;
+        });
+    }
+    /**
+     * Rebuilds the bitboards and the Zobrist hash from the char game board.
+     */
+    private void syncDerivedState() {
+        xBits = 0L;
+        oBits = 0L;
+        zobristHash = 0L;
+        evaluation = 0L;
+        Arrays.fill(symmetryHashes, 0L);
+        undoCount = 0;
+        positionIndex = 0;
+        // The candidates are rebuilt in one pass once the marks are counted
+        neighborhood = null;
+        if (gameBoard == null)
+            return;
+        int rows = gameBoard.length;
+        columns = rows == 0 ? 0 : gameBoard[0].length;
+        int cells = rows * columns;
+        zobrist = zobristKeys(cells);
+        lineTable = LineTable.forShape(rows, columns, winLength > 0 ? winLength : Math.min(rows, columns));
+        points = Point.table(rows, columns);
+        symmetries = Symmetry.permutations(rows, columns);
+        lineCounts = new int[2][lineTable.getLineCount()];
+        emptyCells = new int[cells];
+        emptyIndex = new int[cells];
+        undoStack = new int[cells];
+        emptyCount = 0;
+        for (int sub = 0; sub < cells; sub++) {
+            emptyCells[sub] = sub;
+            emptyIndex[sub] = sub;
+        }
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                if (gameBoard[i][j] != NO_PLAYER)
+                    updateDerivedState(i, j, gameBoard[i][j], true);
+                else
+                    addEmptyCell(i * columns + j);
+            }
+        }
+        rebuildCandidates();
+    }
+    /**
+     * Gets the cells within a radius of every cell of a board shape, the
+     * cell itself left out. The tables are built once and shared.
+     * @param rows		The number of rows
+     * @param columns	The number of columns
+     * @param radius	The largest row and column distance
+     * @return			The subscripts of the cells around each cell
+     */
+    private static int[][] neighborhoods(int rows, int columns, int radius) {
+        return NEIGHBORHOODS.computeIfAbsent(Arrays.asList(rows, columns, radius), shape -> {
+            int[][] table = new int[rows * columns][];
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < columns; c++) {
+                    List<Integer> cells = new ArrayList<>();
+                    for (int nr = Math.max(0, r - radius); nr <= Math.min(rows - 1, r + radius); nr++) {
+                        for (int nc = Math.max(0, c - radius); nc <= Math.min(columns - 1, c + radius); nc++) {
+                            if (nr != r || nc != c)
+                                cells.add(nr * columns + nc);
+                        }
+                    }
+                    table[r * columns + c] = cells.stream().mapToInt(Integer::intValue).toArray();
+                }
+            }
+            return table;
+        });
+    }
+    /**
+     * Rebuilds the mark counts around every cell and the candidate set from
+     * the char game board.
+     */
+    private void rebuildCandidates() {
+        candidateCount = 0;
+        if (candidateRadius == 0 || gameBoard == null) {
+            neighborhood = null;
+            return;
+        }
+        int cells = gameBoard.length * columns;
+        nearbyMarks = new int[cells];
+        candidates = new int[cells];
+        candidateIndex = new int[cells];
+        for (int sub = 0; sub < cells; sub++) {
+            candidates[sub] = sub;
+            candidateIndex[sub] = sub;
+        }
+        int[][] around = neighborhoods(gameBoard.length, columns, candidateRadius);
+        for (int sub = 0; sub < cells; sub++) {
+            if (gameBoard[sub / columns][sub % columns] != NO_PLAYER) {
+                for (int cell : around[sub])
+                    nearbyMarks[cell]++;
+            }
+        }
+        for (int sub = 0; sub < cells; sub++) {
+            if (gameBoard[sub / columns][sub % columns] == NO_PLAYER && nearbyMarks[sub] > 0)
+                swapCandidates(candidateIndex[sub], candidateCount++);
+        }
+        neighborhood = around;
+    }
+    /**
+     * Updates the candidate set after a cell was filled or cleared: the
+     * cell itself and the cells around it are the only ones that change.
+     * @param sub		The cell subscript
+     * @param occupied	true if the cell was filled, false if it was cleared
+     */
+    private void updateCandidates(int sub, boolean occupied) {
+        if (occupied) {
+            removeCandidate(sub);
+            for (int cell : neighborhood[sub]) {
+                if (nearbyMarks[cell]++ == 0 && gameBoard[cell / columns][cell % columns] == NO_PLAYER)
+                    addCandidate(cell);
+            }
+        } else {
+            for (int cell : neighborhood[sub]) {
+                if (--nearbyMarks[cell] == 0)
+                    removeCandidate(cell);
+            }
+            if (nearbyMarks[sub] > 0)
+                addCandidate(sub);
+        }
+    }
+    /**
+     * Moves a cell into the candidate part of the candidate array.
+     * @param sub the cell subscript
+     */
+    private void addCandidate(int sub) {
+        int index = candidateIndex[sub];
+        if (index < candidateCount)
+            return;
+        swapCandidates(index, candidateCount++);
+    }
+    /**
+     * Moves a cell out of the candidate part of the candidate array.
+     * @param sub the cell subscript
+     */
+    private void removeCandidate(int sub) {
+        int index = candidateIndex[sub];
+        if (index >= candidateCount)
+            return;
+        swapCandidates(index, --candidateCount);
+    }
+    /**
+     * Swaps two entries of the candidate array.
+     * @param i the first index
+     * @param j the second index
+     */
+    private void swapCandidates(int i, int j) {
+        int a = candidates[i];
+        int b = candidates[j];
+        candidates[i] = b;
+        candidates[j] = a;
+        candidateIndex[b] = i;
+        candidateIndex[a] = j;
+    }
+    /**
+     * Moves a cell into the empty part of the empty-cell array.
+     * @param sub the cell subscript
+     */
+    private void addEmptyCell(int sub) {
+        int index = emptyIndex[sub];
+        if (index < emptyCount)
+            return;
+        swapEmptyCells(index, emptyCount++);
+    }
+    /**
+     * Moves a cell out of the empty part of the empty-cell array.
+     * @param sub the cell subscript
+     */
+    private void removeEmptyCell(int sub) {
+        int index = emptyIndex[sub];
+        if (index >= emptyCount)
+            return;
+        swapEmptyCells(index, --emptyCount);
+    }
+    /**
+     * Swaps two entries of the empty-cell array.
+     * @param i the first index
+     * @param j the second index
+     */
+    private void swapEmptyCells(int i, int j) {
+        int a = emptyCells[i];
+        int b = emptyCells[j];
+        emptyCells[i] = b;
+        emptyCells[j] = a;
+        emptyIndex[b] = i;
+        emptyIndex[a] = j;
+    }
+    /**
+     * Sets or clears the bitboard bit of a cell for the given mark, toggles
+     * the cell key in the Zobrist hash and updates the line counters and the
+     * empty-cell set.
+     * @param row the zero based row
+     * @param col the zero based column
+     * @param player the player mark
+     * @param occupied true to set the bit, false to clear it
+     */
+    private void updateDerivedState(int row, int col, char player, boolean occupied) {
+        int sub = row * columns + col;
+        if (occupied)
+            removeEmptyCell(sub);
+        else
+            addEmptyCell(sub);
+        if (neighborhood != null)
+            updateCandidates(sub, occupied);
+        if (player != 'X' && player != 'O')
+            return;
+        int mark = player == 'X' ? 0 : 1;
+        int[] counts = lineCounts[mark];
+        for (int line : lineTable.getLinesThrough(sub)) {
+            evaluation -= lineValue(line);
+            counts[line] += occupied ? 1 : -1;
+            evaluation += lineValue(line);
+        }
+        if (sub < MAX_INDEXED_CELLS)
+            positionIndex += (occupied ? 1 : -1) * (mark + 1) * POWERS_OF_THREE[sub];
+        zobristHash ^= zobrist[2 * sub + mark];
+        for (int t = 0; t < Symmetry.TRANSFORMS; t++)
+            symmetryHashes[t] ^= zobrist[2 * symmetries[t][sub] + mark];
+        if (!isBitboardBacked())
+            return;
+        long bit = 1L << sub;
+        if (player == 'X')
+            xBits = occupied ? xBits | bit : xBits & ~bit;
+        else
+            oBits = occupied ? oBits | bit : oBits & ~bit;
+    }
+    /**
+     * Gets the open-line value of a line for X: the weight of its marks when
+     * only X has marks on it, minus that weight when only O has, 0 otherwise.
+     * @param line the line index of the board's LineTable
+     * @return the value of the line for X
+     */
+    private long lineValue(int line) {
+        int x = lineCounts[0][line];
+        int o = lineCounts[1][line];
+        if (x > 0 && o > 0)
+            return 0L;
+        return x > 0 ? lineWeight(x) : -lineWeight(o);
+    }
+    /**
+     * Gets the value of an open line
+     * @param marks the number of marks on the line
+     * @return the weight, 0 for no marks
+     */
+    private static long lineWeight(int marks) {
+        return LINE_WEIGHTS[Math.min(marks, LINE_WEIGHTS.length - 1)];
+    }
+    /**
+     * Gets the static evaluation of the position for a player: the weights
+     * of the player's open lines minus those of the opponent, where an open
+     * line holds marks of one player only and each mark on it is worth 8
+     * times the one before. The sum is kept up to date on every move, so
+     * this costs O(1).
+     * @param player the player mark, X or O
+     * @return the evaluation, between -MAX_EVALUATION and MAX_EVALUATION
+     */
+    public int getEvaluation(char player) {
+        int value = (int) Math.max(-MAX_EVALUATION, Math.min(MAX_EVALUATION, evaluation));
+        return player == 'O' ? -value : value;
+    }
+    /**
+     * Gets the Zobrist hash of the marks on the board.
+     * @return the Zobrist hash
+     */
+    public long getZobristHash() {
+        return zobristHash;
+    }
+    /**
+     * Gets the Zobrist hash of the position with the given player to move.
+     * @param toMove the mark of the player to move
+     * @return the Zobrist hash including the side to move
+     */
+    public long getZobristHash(char toMove) {
+        return toMove == 'O' ? zobristHash ^ ZOBRIST_SIDE_KEY : zobristHash;
+    }
+    /**
+     * Gets the index of the rotation/reflection that maps the board onto its
+     * canonical form, the one with the lowest Zobrist hash.
+     * @return the transform index, see Symmetry.permutations
+     */
+    public int getCanonicalTransform() {
+        int best = Symmetry.IDENTITY;
+        for (int t = 1; t < Symmetry.TRANSFORMS; t++) {
+            if (symmetryHashes[t] < symmetryHashes[best])
+                best = t;
+        }
+        return best;
+    }
+    /**
+     * Gets the Zobrist hash of the canonical form of the board, which is the
+     * same for all 8 rotations and reflections of a position.
+     * @param toMove the mark of the player to move
+     * @return the canonical Zobrist hash including the side to move
+     */
+    public long getCanonicalHash(char toMove) {
+        return getSymmetryHash(getCanonicalTransform(), toMove);
+    }
+    /**
+     * Gets the Zobrist hash of a rotation/reflection of the board.
+     * @param transform the transform index, see Symmetry.permutations
+     * @param toMove the mark of the player to move
+     * @return the Zobrist hash of the transformed board including the side to move
+     */
+    public long getSymmetryHash(int transform, char toMove) {
+        long hash = symmetryHashes[transform];
+        return toMove == 'O' ? hash ^ ZOBRIST_SIDE_KEY : hash;
+    }
+    /**
+     * Gets the bitboard of the player mark.
+     * @param player the player mark (X/O)
+     * @return the bitboard of the player, 0 for any other mark
+     */
+    public long getBitboard(char player) {
+        return player == 'X' ? xBits : player == 'O' ? oBits : 0L;
+    }
+    /**
+     * Gets the mask with a bit set for every cell on the board.
+     * @return the full board mask
+     */
+    private long fullMask() {
+        int cells = gameBoard.length * columns;
+        return cells == Long.SIZE ? -1L : (1L << cells) - 1;
+    }
     /**
      * Adds the last move played to a list of previous moves
      * @param point the point played last
@@ -158,7 +609,8 @@ public class Board {
         return depth;
     }
     /**
-     * Gets the game board
+     * Gets the game board. Moves must be placed and removed through
+     * placeAMove/removeAMove so the bitboards stay in sync.
      * @return the game board
      */
     public char[][] getGameBoard() {
@@ -170,6 +622,7 @@ public class Board {
      */
     public void setGameBoard(char[][] gameBoard) {
         this.gameBoard = gameBoard;
+        syncDerivedState();
     }
     /**
      * Gets the the NULL player token
@@ -214,7 +667,7 @@ public class Board {
      * @return		The index value of the cell on the board.
      */
     public int getSub(int r, int c)	{
-        return (r - 1) * this.boardSize + (c - 1);
+        return (r - 1) * this.columns + (c - 1);
     }
     /**
      * The getRow method accepts the value for the subscript
@@ -223,7 +676,7 @@ public class Board {
      * @return		The value of the row.
      */
     public int getRow(int sub) {
-        return (sub / this.boardSize) + 1;
+        return (sub / this.columns) + 1;
     }
     /**
      * The getCol method accepts the value of the subscript
@@ -232,7 +685,7 @@ public class Board {
      * @return		The value of the column.
      */
     public int getCol(int sub) {
-        return (sub % this.boardSize) + 1;
+        return (sub % this.columns) + 1;
     }
     /**
      * The getComputerMove returns the row and column
@@ -269,10 +722,11 @@ public class Board {
      */
     public void clearBoard() {
         for (int i = 0; i < gameBoard.length; i++) {
-            for (int j = 0; j < gameBoard.length; j++){
+            for (int j = 0; j < gameBoard[i].length; j++){
                 this.gameBoard[i][j] = NO_PLAYER;
             }  
         }
+        syncDerivedState();
     }
 
     /**
@@ -282,10 +736,11 @@ public class Board {
      */
     public void clearBoard(char[][] gameBoard) {
         for (int i = 0; i < gameBoard.length; i++) {
-            for (int j = 0; j < gameBoard.length; j++){
+            for (int j = 0; j < gameBoard[i].length; j++){
                 this.gameBoard[i][j] = NO_PLAYER;
             }  
         }
+        syncDerivedState();
     }
     /**
      * The isGameOver method checks the game board for a winner
@@ -294,9 +749,8 @@ public class Board {
      */
     public boolean isGameOver() {
         
-        boolean over = hasPlayerWon(computerMark) || hasPlayerWon(humanMark)
-                || getAvailableCells().isEmpty();
-                logger.debug("Game is Over: "+over);
+        boolean over = hasPlayerWon(computerMark) || hasPlayerWon(humanMark) || emptyCount == 0;
+                logger.debug("Game is Over: {}", over);
                 return over;
     }
     // /**
@@ -347,16 +801,51 @@ public class Board {
     public List<Point> getAvailableCells(){
         List<Point> availableCells = new ArrayList<>();
 
+        if (isBitboardBacked()) {
+            // walk the empty bits in row-major order
+            long empty = ~(xBits | oBits) & fullMask();
+            while (empty != 0L) {
+                int sub = Long.numberOfTrailingZeros(empty);
+                empty &= empty - 1;
+                availableCells.add(points[sub]);
+            }
+            logger.debug("Available Cells: {}", availableCells);
+            return availableCells;
+        }
         for (int r = 1; r <= gameBoard.length; r++) {
-            for (int c = 1; c <= gameBoard.length; c++) {
+            for (int c = 1; c <= columns; c++) {
                 // logger.debug("row: "+r+" | Column: "+c+ " | getSub: "+getSub(r, c));
                 if (gameBoard[r-1][c-1] == NO_PLAYER)
-                    availableCells.add(new Point(r,c));
+                    availableCells.add(points[(r - 1) * columns + (c - 1)]);
             }
         }
-        logger.debug("Available Cells: "+Arrays.deepToString(availableCells.toArray()));
+        logger.debug("Available Cells: {}", availableCells);
         return availableCells;
     }
+    /**
+     * Fills a buffer with the subscripts of the empty cells in row-major
+     * order, the same order as the list of available cells, without
+     * creating any objects
+     * @param cells	The buffer, at least as long as the number of empty cells
+     * @return		The number of empty cells written
+     */
+    public int getAvailableCells(int[] cells) {
+        int count = 0;
+        if (isBitboardBacked()) {
+            // walk the empty bits in row-major order
+            long empty = ~(xBits | oBits) & fullMask();
+            while (empty != 0L) {
+                cells[count++] = Long.numberOfTrailingZeros(empty);
+                empty &= empty - 1;
+            }
+            return count;
+        }
+        for (int sub = 0; sub < gameBoard.length * columns; sub++) {
+            if (gameBoard[sub / columns][sub % columns] == NO_PLAYER)
+                cells[count++] = sub;
+        }
+        return count;
+    }
     /**
      * The placeAMove method accepts two points as Point
      * and the player mark, to place a move in the cell referenced.
@@ -371,13 +860,199 @@ public class Board {
         // System.out.println("Col: "+point.getCol());
         // logger.debug("Point: "+point.toString()+" | Row: "+point.getRow()+" | Column: "+point.getCol());
         if (gameBoard[point.getRow()][point.getCol()] != NO_PLAYER){
-            logger.debug("Unable to Place A Move at => Row: "+point.getRow()+" | Column:"+point.getCol());
+            logger.debug("Unable to Place A Move at => Row: {} | Column:{}", point.getRow(), point.getCol());
             return false;
         }
         gameBoard[point.getRow()][point.getCol()] = player;    
-        logger.debug("Placed A Move at => Row: "+point.getRow()+" | Column:"+point.getCol());    
+        updateDerivedState(point.getRow(), point.getCol(), player, true);
+        logger.debug("Placed A Move at => Row: {} | Column:{}", point.getRow(), point.getCol());    
         return true;
     }
+    /**
+     * The removeAMove method clears the cell referenced by the point,
+     * undoing a move placed with placeAMove. An empty cell is left as it is.
+     * @param point		The two points representing row and column
+     */
+    public void removeAMove(Point point) {
+        char player = gameBoard[point.getRow()][point.getCol()];
+        if (player == NO_PLAYER)
+            return;
+        gameBoard[point.getRow()][point.getCol()] = NO_PLAYER;
+        updateDerivedState(point.getRow(), point.getCol(), player, false);
+    }
+    /**
+     * The makeMove method places a move like placeAMove and pushes it on the
+     * undo stack, so unmakeMove can take it back. The hash, line counters
+     * and empty-cell set are updated in constant time.
+     * @param point		The two points representing row and column
+     * @param player	The player mark
+     * @return			false if the cell is occupied, true if the move was made
+     */
+    public boolean makeMove(Point point, char player) {
+        int row = point.getRow();
+        int col = point.getCol();
+        if (gameBoard[row][col] != NO_PLAYER)
+            return false;
+        gameBoard[row][col] = player;
+        updateDerivedState(row, col, player, true);
+        undoStack[undoCount++] = row * columns + col;
+        return true;
+    }
+    /**
+     * The unmakeMove method takes back the last move made with makeMove and
+     * restores the hash, line counters and empty-cell set in constant time.
+     * @return the subscript of the cell cleared, -1 if no move was made
+     */
+    public int unmakeMove() {
+        if (undoCount == 0)
+            return -1;
+        int sub = undoStack[--undoCount];
+        int row = sub / columns;
+        int col = sub % columns;
+        char player = gameBoard[row][col];
+        gameBoard[row][col] = NO_PLAYER;
+        updateDerivedState(row, col, player, false);
+        return sub;
+    }
+    /**
+     * Gets the number of moves on the undo stack
+     * @return the number of moves unmakeMove can take back
+     */
+    public int getUndoDepth() {
+        return undoCount;
+    }
+    /**
+     * Gets the number of empty cells, kept up to date on every move.
+     * @return the empty cell count
+     */
+    public int getEmptyCellCount() {
+        return emptyCount;
+    }
+    /**
+     * Gets an empty cell. The order of the empty cells changes as moves are
+     * made and taken back.
+     * @param index the index of the empty cell, below getEmptyCellCount()
+     * @return the cell subscript
+     */
+    public int getEmptyCell(int index) {
+        return emptyCells[index];
+    }
+    /**
+     * Sets the radius candidate moves are taken from: only the empty cells
+     * within that many rows and columns of a mark are proposed, so searches
+     * on large boards skip the cells far from the play. The candidates are
+     * kept up to date on every move. The undo stack is kept.
+     * @param candidateRadius the radius, 0 to propose every empty cell
+     */
+    public void setCandidateRadius(int candidateRadius) {
+        this.candidateRadius = Math.max(0, candidateRadius);
+        rebuildCandidates();
+    }
+    /**
+     * Gets the radius candidate moves are taken from
+     * @return the radius, 0 if every empty cell is a candidate
+     */
+    public int getCandidateRadius() {
+        return candidateRadius;
+    }
+    /**
+     * Checks if a cell is a candidate move: an empty cell near a mark, or
+     * any empty cell when the radius is 0 or the board is empty.
+     * @param sub the cell subscript
+     * @return true for a candidate move
+     */
+    public boolean isCandidate(int sub) {
+        if (gameBoard[sub / columns][sub % columns] != NO_PLAYER)
+            return false;
+        return neighborhood == null || emptyCount == nearbyMarks.length || nearbyMarks[sub] > 0;
+    }
+    /**
+     * Gets the number of candidate moves, kept up to date on every move.
+     * @return the candidate count
+     */
+    public int getCandidateCount() {
+        return neighborhood == null || emptyCount == nearbyMarks.length ? emptyCount : candidateCount;
+    }
+    /**
+     * Gets a candidate move. The order of the candidates changes as moves
+     * are made and taken back.
+     * @param index the index of the candidate, below getCandidateCount()
+     * @return the cell subscript
+     */
+    public int getCandidate(int index) {
+        return neighborhood == null || emptyCount == nearbyMarks.length ? emptyCells[index] : candidates[index];
+    }
+    /**
+     * Gets the number of marks of a player on a winning line.
+     * @param player the player mark, X or O
+     * @param line the line index of the board's LineTable
+     * @return the number of the player's marks on the line
+     */
+    public int getLineCount(char player, int line) {
+        return lineCounts[player == 'X' ? 0 : 1][line];
+    }
+    /**
+     * Gets the base-3 index of the position, the sum of mark * 3^sub over
+     * all cells with 0 for empty, 1 for X and 2 for O. It is updated on
+     * every move and indexes tables of solved positions directly.
+     * @return the position index, -1 if the board has more than MAX_INDEXED_CELLS cells
+     */
+    public int getPositionIndex() {
+        return gameBoard.length * columns <= MAX_INDEXED_CELLS ? positionIndex : -1;
+    }
+    /**
+     * Gets the winning lines of the board shape
+     * @return the line table
+     */
+    public LineTable getLineTable() {
+        return lineTable;
+    }
+    /**
+     * Gets the number of rows
+     * @return the row count
+     */
+    public int getRowCount() {
+        return gameBoard.length;
+    }
+    /**
+     * Gets the number of columns
+     * @return the column count
+     */
+    public int getColumnCount() {
+        return columns;
+    }
+    /**
+     * Gets the shared point of a cell
+     * @param sub the cell subscript
+     * @return the point of the cell
+     */
+    public Point getPoint(int sub) {
+        return points[sub];
+    }
+    /**
+     * Gets the shared point of a cell
+     * @param row	The row, 1 to the number of rows
+     * @param col	The column, 1 to the number of columns
+     * @return		The point of the cell
+     */
+    public Point getPoint(int row, int col) {
+        return points[(row - 1) * columns + (col - 1)];
+    }
+    /**
+     * Gets the number of marks in a row that wins
+     * @return the win length
+     */
+    public int getWinLength() {
+        return lineTable.getWinLength();
+    }
+    /**
+     * Checks if the board is square and a whole row, column or diagonal
+     * wins, the classic game the solved tables are built for
+     * @return true for the classic game
+     */
+    public boolean isClassic() {
+        return gameBoard.length == columns && getWinLength() == columns;
+    }
     /**
      * The displayBoard prints the game board to the display.
      * 
@@ -386,20 +1061,20 @@ public class Board {
         System.out.println("\n");
         for (int i = 0; i<gameBoard.length; i++)
         {
-            for (int j = 0; j < gameBoard.length; j++)
+            for (int j = 0; j < columns; j++)
             {      
                 System.out.print(gameBoard[i][j]);
-                if (j == gameBoard.length-1) {
+                if (j == columns-1) {
                     System.out.print("\t\t<= ROW "+(i+1));
                 }
                 // // logger.debug("Row "+ j +" I think: "+(j+1) % gameBoard.length);
-                if (((j+1) % gameBoard.length) == 0)
+                if (((j+1) % columns) == 0)
                 {
-                    if (j < (gameBoard.length)){
+                    if (j < (columns)){
                         System.out.println(" ");
                     }
                     if (i < gameBoard.length-1){
-                        for (int j2 = 0; j2 < Math.ceil(gameBoard.length-1); j2++) {
+                        for (int j2 = 0; j2 < Math.ceil(columns-1); j2++) {
                             System.out.print("-+");
                         }
                     }
@@ -414,7 +1089,7 @@ public class Board {
             }
         }    
         System.out.println("\n");
-        for (int i = 0; i < gameBoard.length; i++) {
+        for (int i = 0; i < columns; i++) {
             System.out.print(""+(i+1)+" ");
         }
         System.out.println("\n\n⇑-⇑-⇑-COLUMNS");
@@ -429,20 +1104,20 @@ public class Board {
         System.out.println("\n");
         for (int i = 0; i<gameBoard.length; i++)
         {
-            for (int j = 0; j < gameBoard.length; j++)
+            for (int j = 0; j < gameBoard[i].length; j++)
             {      
                 System.out.print(gameBoard[i][j]);
-                if (j == gameBoard.length-1) {
+                if (j == gameBoard[i].length-1) {
                     System.out.print("\t\t<= ROW "+(i+1));
                 }
                 // // logger.debug("Row "+ j +" I think: "+(j+1) % gameBoard.length);
-                if (((j+1) % gameBoard.length) == 0)
+                if (((j+1) % gameBoard[i].length) == 0)
                 {
-                    if (j < (gameBoard.length)){
+                    if (j < (gameBoard[i].length)){
                         System.out.println(" ");
                     }
                     if (i < gameBoard.length-1){
-                        for (int j2 = 0; j2 < Math.ceil(gameBoard.length-1); j2++) {
+                        for (int j2 = 0; j2 < Math.ceil(gameBoard[i].length-1); j2++) {
                             System.out.print("-+");
                         }
                     }
@@ -457,7 +1132,7 @@ public class Board {
             }
         }    
         System.out.println("\n");
-        for (int i = 0; i < gameBoard.length; i++) {
+        for (int i = 0; i < gameBoard[0].length; i++) {
             System.out.print(""+(i+1)+" ");
         }
         System.out.println("\n\n⇑-⇑-⇑-COLUMNS");
@@ -472,7 +1147,7 @@ public class Board {
     public char[][] setupGameBrd(char[][] gBoard){
         // int label = 0;
         for (int i = 0; i < gBoard.length; i++) {
-            for (int j = 0; j < gBoard.length; j++) {
+            for (int j = 0; j < gBoard[i].length; j++) {
                 // System.out.println("Sub:" +s);
                 if (gBoard[i][j] != ' ' && gBoard[i][j] != 'X' && gBoard[i][j] != 'O')
                     gBoard[i][j] = ' ';
@@ -490,12 +1165,90 @@ public class Board {
     //     return Thread.currentThread().getStackTrace()[2].getLineNumber();
     // }
     /**
-     * Dynamically checks for a winning pattern based on the board size
+     * Checks if the mark on a cell completes a row, column or diagonal
+     * through that cell. Only a move can complete a line, and only the lines
+     * through its own cell, so after a move this replaces a scan of the
+     * whole board.
+     * @param point the cell of the move just placed
+     * @return true if the move won the game
+     */
+    public boolean isWinningMove(Point point) {
+        return isWinningMove(point.getRow(), point.getCol());
+    }
+    /**
+     * Checks if the mark on a cell completes a row, column or diagonal
+     * through that cell.
+     * @param row the zero based row
+     * @param col the zero based column
+     * @return true if the move won the game
+     */
+    public boolean isWinningMove(int row, int col) {
+        char player = gameBoard[row][col];
+        if (player == NO_PLAYER)
+            return false;
+        int sub = row * columns + col;
+        if (isBitboardBacked() && (player == 'X' || player == 'O')) {
+            long bits = player == 'X' ? xBits : oBits;
+            for (int line : lineTable.getLinesThrough(sub)) {
+                long mask = lineTable.getMask(line);
+                if ((bits & mask) == mask)
+                    return true;
+            }
+            return false;
+        }
+        if (player == 'X' || player == 'O') {
+            int[] counts = lineCounts[player == 'X' ? 0 : 1];
+            for (int line : lineTable.getLinesThrough(sub)) {
+                if (counts[line] == lineTable.getWinLength())
+                    return true;
+            }
+            return false;
+        }
+        for (int line : lineTable.getLinesThrough(sub)) {
+            boolean owned = true;
+            for (int cell : lineTable.getLine(line)) {
+                if (gameBoard[cell / columns][cell % columns] != player) {
+                    owned = false;
+                    break;
+                }
+            }
+            if (owned)
+                return true;
+        }
+        return false;
+    }
+    /**
+     * Checks if the last move added with setLastMove won the game.
+     * @return true if the last move completed a line
+     */
+    public boolean hasLastMoveWon() {
+        return !lastMove.isEmpty() && isWinningMove(lastMove.get(lastMove.size() - 1));
+    }
+    /**
+     * Dynamically checks for a winning pattern based on the board size.
+     * Boards up to 64 cells are checked against the precomputed win-line
+     * masks, larger boards against the line counters; any other mark falls
+     * back to scanning the rows, columns and diagonals.
      * @param player the player mark
      * @return true if player won, false if no win
      */
     public boolean hasPlayerWon(char player)
     {
+        if (isBitboardBacked() && (player == 'X' || player == 'O')) {
+            long bits = player == 'X' ? xBits : oBits;
+            for (long mask : lineTable.getMasks()) {
+                if ((bits & mask) == mask)
+                    return true;
+            }
+            return false;
+        }
+        if (player == 'X' || player == 'O') {
+            for (int count : lineCounts[player == 'X' ? 0 : 1]) {
+                if (count == lineTable.getWinLength())
+                    return true;
+            }
+            return false;
+        }
         boolean won = false;
 
         char[][] gBoard = getGameBoard();
@@ -625,7 +1378,7 @@ public class Board {
                 horizontalCheck.getAsBoolean() == true ? true :
                 diagonalCheckFromTopLeft.getAsBoolean() == true ? true : 
                 diagonalCheckFromBottomLeft.getAsBoolean() == true ? true : false;
-                logger.debug("Player "+player+" has won: "+won);
+                logger.debug("Player {} has won: {}", player, won);
         return won;
     }
     /**
@@ -767,128 +1520,33 @@ public class Board {
                 horizontalCheck.getAsBoolean() == true ? true :
                 diagonalCheckFromTopLeft.getAsBoolean() == true ? true : 
                 diagonalCheckFromBottomLeft.getAsBoolean() == true ? true : false;
-                logger.debug("Player "+player+" has won: "+won);
+                logger.debug("Player {} has won: {}", player, won);
         return won;
     }
     /**
-     * Dynamically checks for a winning pattern based on the board size.
+     * Checks for a win of number_Of_Win_Pattern_To_Check_In_A_Row marks in a
+     * row anywhere on a game board of any shape, the (m,n,k) rule. The win
+     * lines of the shape come from its LineTable.
      * @param player the player mark
-     * @param gBoard the game board
-     * @param number_Of_Win_Pattern_To_Check_In_A_Row define the size of the win pattern, i.e. 4x4, 5x5
+     * @param gBoard the game board, rows of equal length
+     * @param number_Of_Win_Pattern_To_Check_In_A_Row the number of marks in a row that wins, i.e. 5 for gomoku
      * @return true if player won, false if no win
      */
     public boolean hasPlayerWon(char player, char[][] gBoard, int number_Of_Win_Pattern_To_Check_In_A_Row)
     {
+        int numberOfColumns = gBoard[0].length;
+        LineTable lines = LineTable.forShape(gBoard.length, numberOfColumns, number_Of_Win_Pattern_To_Check_In_A_Row);
         boolean won = false;
-        
-        int numberOfColumns = number_Of_Win_Pattern_To_Check_In_A_Row;
-        // lambda to check the rows
-        BooleanSupplier horizontalCheck = () -> {
-            boolean isWinner = false;
-            List<char[]> val = new ArrayList<char[]>();
-            // counts how many time a match is found
-            int validityCounter; 
-            // get all the rows for checking
-            for (int i = 0; i < numberOfColumns; i++)
-            val.add(gBoard[i]);
-            // now check each set of rows
-            for (int i = 0; i < numberOfColumns; i++) 
-            {   // reset counter after every row check
-                validityCounter= 0; 
-                // System.out.println("Valid cntr: "+validityCounter);
-                // get the first value of each set
-                // char firstValue = val.get(i)[0];
-                for (int j = 0; j < numberOfColumns; j++) 
-                {
-                    if (player == val.get(i)[j])
-                    {
-                        validityCounter++;
-                        // System.out.println("Valid cntr: "+validityCounter);
-                        if (validityCounter == numberOfColumns) 
-                            return isWinner = true;
-                    }
-                    // else break;
+        for (int l = 0; l < lines.getLineCount() && !won; l++) {
+            won = true;
+            for (int cell : lines.getLine(l)) {
+                if (gBoard[cell / numberOfColumns][cell % numberOfColumns] != player) {
+                    won = false;
+                    break;
                 }
             }
-            return isWinner;            
-        };
-        // lambda to check the columns
-        BooleanSupplier verticalCheck = () -> {
-            boolean isWinner = false;
-            // counts how many time a match is found
-            int validityCounter; 
-            // get all the columns for checking
-            for (int i = 0; i < numberOfColumns; i++)
-            {   // reset counter after every row check
-                validityCounter= 0; 
-                // System.out.println("Valid cntr: "+validityCounter);
-                for (int j = 0; j < numberOfColumns; j++) 
-                {
-                    if (player == gBoard[j][i])
-                    {
-                        validityCounter++;
-                        // System.out.println("Valid cntr: "+validityCounter);
-                        if (validityCounter == numberOfColumns) 
-                            return isWinner = true;
-                    }
-                    // else break;
-                }
-            }
-            return isWinner;
-        };
-        // lambda to check the diagonal from top left
-        BooleanSupplier diagonalCheckFromTopLeft = () -> {
-            boolean isWinner = false;
-            // counts how many time a match is found
-            // reset counter after every row check
-            int validityCounter = 0; 
-            /// check diagonal from top left
-            for (int i = 0; i < numberOfColumns; i++)
-            {   
-                // System.out.println("Valid cntr: "+validityCounter);
-                // System.out.println("Row calc: "+i+" | Column: "+i);
-                if (player == gBoard[i][i])
-                {
-                    validityCounter++;
-                    // System.out.println("Valid cntr: "+validityCounter);
-                    if (validityCounter == numberOfColumns) 
-                        return isWinner = true;
-                }
-                // else break;
-            }
-            return isWinner;
-        };
-        // lambda to check the diagonal from bottom left
-        BooleanSupplier diagonalCheckFromBottomLeft = () -> {
-            boolean isWinner = false;
-            // counts how many time a match is found
-            // reset counter after every row check
-            int validityCounter = 0; 
-            // check diagonal from bottom lift
-            for (int i = 0; i < numberOfColumns; i++) 
-            { // Count down function: a_n = -i + numberOfColumns
-                // System.out.println("Valid cntr: "+validityCounter);
-                // System.out.println("Row calc: "+(numberOfColumns - (i+1))+" | Column: "+i);
-                if (player == gBoard[(numberOfColumns - (i+1))][i])
-                {
-                    validityCounter++;
-                    // System.out.println("Valid cntr: "+validityCounter);
-                    if (validityCounter == numberOfColumns) 
-                        return isWinner = true;
-                }
-                // else break;
-            }
-            return isWinner;
-        };
-        // won = verticalCheck.getAsBoolean();
-        // won = diagonalCheckFromTopLeft.getAsBoolean();
-        // won = diagonalCheckFromBottomLeft.getAsBoolean();
-        // won = horizontalCheck.getAsBoolean();
-        won =   verticalCheck.getAsBoolean() == true ? true : 
-                horizontalCheck.getAsBoolean() == true ? true :
-                diagonalCheckFromTopLeft.getAsBoolean() == true ? true : 
-                diagonalCheckFromBottomLeft.getAsBoolean() == true ? true : false;
-        logger.debug("Player "+player+" has won: "+won);
+        }
+        logger.debug("Player {} has won: {}", player, won);
         return won;
     }
     public static void main(String[] arg) 
@@ -0,0 +1,296 @@
+package com.hyfi.tictactoe;
+// Imports
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The GameDataWriter class appends the game statistics to the data file without holding up the search. Records go into a bounded ring buffer and a background flusher thread writes them in batches to one channel kept open for the life of the writer, every flush interval or as soon as the buffer is half full. When the buffer is full the overflow policy either makes the writing thread wait for room or drops the record and counts it; the shared writer blocks by default so no record is lost, and configure switches it to dropping before first use. Closing the writer, or the end of the program for the shared writer, writes the records still buffered before the channel is closed.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public final class GameDataWriter implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(GameDataWriter.class);
+
+    // Number of records the buffer holds by default
+    public static final int DEFAULT_CAPACITY = 8192;
+    // Longest time a record waits in the buffer by default
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 200;
+
+    // The writer of PointAndScore.DATA_FILE, opened on first use
+    private static GameDataWriter shared;
+    // Settings of the shared writer, read when it is opened. BLOCK is the
+    // default on purpose: every record reaches the file, as with the
+    // FileWriter it replaced, and with a buffer this size a search only
+    // waits when the disk falls behind by thousands of records.
+    private static int sharedCapacity = DEFAULT_CAPACITY;
+    private static long sharedFlushIntervalMillis = DEFAULT_FLUSH_INTERVAL_MILLIS;
+    private static OverflowPolicy sharedPolicy = OverflowPolicy.BLOCK;
+
+    // The data file, opened for appending
+    private final FileChannel channel;
+    private final Path file;
+    // Ring buffer of the records not yet written
+    private final String[] records;
+    private int head;
+    private int count;
+    private final long flushIntervalNanos;
+    private final OverflowPolicy policy;
+    // Guards the buffer; the flusher waits on ready, blocked writers on notFull
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition ready = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    // Number of records taken by the flusher and number written to the file
+    private long takenCount;
+    private long writtenCount;
+    private long droppedCount;
+    // Set by flush to have the flusher write without waiting for the interval
+    private boolean flushRequested;
+    private boolean closed;
+    private final Thread flusher;
+
+    /**
+     * Opens a writer with the default capacity, flush interval and the
+     * BLOCK policy
+     * @param file the file the records are appended to
+     * @throws IOException if the file cannot be opened
+     */
+    public GameDataWriter(Path file) throws IOException {
+        this(file, DEFAULT_CAPACITY, DEFAULT_FLUSH_INTERVAL_MILLIS, OverflowPolicy.BLOCK);
+    }
+    /**
+     * Opens a writer and starts its flusher thread
+     * @param file					The file the records are appended to
+     * @param capacity				The number of records the buffer holds
+     * @param flushIntervalMillis	The longest time a record waits in the buffer
+     * @param policy				What to do with a record when the buffer is full
+     * @throws IOException if the file cannot be opened
+     * @throws IllegalArgumentException if the capacity or interval is not positive
+     */
+    public GameDataWriter(Path file, int capacity, long flushIntervalMillis, OverflowPolicy policy) throws IOException {
+        logger.debug("Constructor init...");
+        if (capacity < 1 || flushIntervalMillis < 1)
+            throw new IllegalArgumentException("Capacity " + capacity + " and flush interval " + flushIntervalMillis + " must be positive");
+        this.file = file;
+        this.records = new String[capacity];
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.policy = policy;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.flusher = new Thread(this::flushLoop, "game-data-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+    /**
+     * Sets the capacity, flush interval and overflow policy of the shared
+     * writer. It has to be called before the shared writer is first used;
+     * choose DROP when the search must never wait on the file.
+     * @param capacity				The number of records the buffer holds
+     * @param flushIntervalMillis	The longest time a record waits in the buffer
+     * @param policy				What to do with a record when the buffer is full
+     * @throws IllegalArgumentException if the capacity or interval is not positive or the policy is null
+     * @throws IllegalStateException if the shared writer is already open
+     */
+    public static synchronized void configure(int capacity, long flushIntervalMillis, OverflowPolicy policy) {
+        if (capacity < 1 || flushIntervalMillis < 1 || policy == null)
+            throw new IllegalArgumentException("Capacity " + capacity + " and flush interval " + flushIntervalMillis
+                + " must be positive and the policy set, not " + policy);
+        if (shared != null)
+            throw new IllegalStateException("The shared game data writer is already open");
+        sharedCapacity = capacity;
+        sharedFlushIntervalMillis = flushIntervalMillis;
+        sharedPolicy = policy;
+    }
+    /**
+     * Gets the writer of PointAndScore.DATA_FILE, opening it on first use
+     * with the settings given to configure, by default DEFAULT_CAPACITY,
+     * DEFAULT_FLUSH_INTERVAL_MILLIS and the BLOCK policy.
+     * The shared writer is closed when the program ends.
+     * @return the shared writer
+     * @throws IOException if the file cannot be opened
+     */
+    public static synchronized GameDataWriter getInstance() throws IOException {
+        if (shared == null) {
+            GameDataWriter writer = new GameDataWriter(Paths.get(PointAndScore.DATA_FILE), sharedCapacity,
+                sharedFlushIntervalMillis, sharedPolicy);
+            Runtime.getRuntime().addShutdownHook(new Thread(writer::close, "game-data-writer-shutdown"));
+            shared = writer;
+        }
+        return shared;
+    }
+    /**
+     * Adds a record to the buffer, to be written as a line of the file.
+     * With the BLOCK policy it waits while the buffer is full.
+     * @param record the line to write
+     * @return true if the record was buffered, false if it was dropped
+     */
+    public boolean write(String record) {
+        lock.lock();
+        try {
+            while (count == records.length && policy == OverflowPolicy.BLOCK && !closed)
+                notFull.awaitUninterruptibly();
+            if (closed || count == records.length) {
+                droppedCount++;
+                return false;
+            }
+            records[(head + count) % records.length] = record;
+            count++;
+            if (count == records.length / 2 + 1)
+                ready.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    /**
+     * Waits until every record buffered so far is in the file
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            long target = takenCount + count;
+            flushRequested = true;
+            ready.signal();
+            while (writtenCount < target && flusher.isAlive())
+                notFull.awaitUninterruptibly();
+        } finally {
+            lock.unlock();
+        }
+    }
+    /**
+     * Stops taking records, writes the records still buffered and closes
+     * the file. Records written after closing are dropped.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed)
+                return;
+            closed = true;
+            ready.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.error("Unable to close game data file...\n" + e.getMessage());
+        }
+        logger.debug("Game data writer closed | Written: {} | Dropped: {}", writtenCount, droppedCount);
+    }
+    /**
+     * Takes the buffered records every flush interval, or once the buffer
+     * is half full, and appends them to the file until the writer is closed
+     * and the buffer is empty
+     */
+    private void flushLoop() {
+        String[] batch = new String[records.length];
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            int taken;
+            boolean done;
+            lock.lock();
+            try {
+                long wait = flushIntervalNanos;
+                while (!closed && !flushRequested && count <= records.length / 2 && wait > 0) {
+                    try {
+                        wait = ready.awaitNanos(wait);
+                    } catch (InterruptedException e) {
+                        // Checked again on the next pass
+                    }
+                }
+                taken = count;
+                for (int i = 0; i < taken; i++) {
+                    batch[i] = records[(head + i) % records.length];
+                    records[(head + i) % records.length] = null;
+                }
+                head = (head + taken) % records.length;
+                count = 0;
+                flushRequested = false;
+                takenCount += taken;
+                done = closed && taken == 0;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (done)
+                return;
+            if (taken > 0)
+                append(batch, taken, text);
+            lock.lock();
+            try {
+                writtenCount += taken;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+    /**
+     * Appends a batch of records to the file, one line each
+     * @param batch	The records
+     * @param taken	The number of records in the batch
+     * @param text	A reusable builder for the lines
+     */
+    private void append(String[] batch, int taken, StringBuilder text) {
+        text.setLength(0);
+        for (int i = 0; i < taken; i++) {
+            text.append(batch[i]).append(System.lineSeparator());
+            batch[i] = null;
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            while (bytes.hasRemaining())
+                channel.write(bytes);
+        } catch (IOException e) {
+            logger.error("Unable to write game data to " + file + "...\n" + e.getMessage());
+        }
+    }
+    /**
+     * Gets the number of records written to the file
+     * @return the written count
+     */
+    public long getWrittenCount() {
+        lock.lock();
+        try {
+            return writtenCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+    /**
+     * Gets the number of records dropped because the buffer was full or the
+     * writer was closed
+     * @return the dropped count
+     */
+    public long getDroppedCount() {
+        lock.lock();
+        try {
+            return droppedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+    /**
+     * Gets the overflow policy
+     * @return what the writer does with a record when the buffer is full
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return policy;
+    }
+}
@@ -0,0 +1,250 @@
+package com.hyfi.tictactoe;
+// Imports
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.Arrays;
+
+/**
+ * The IterativeDeepening class runs the alpha-beta search one ply deeper at a time until a wall-clock or node budget runs out. Each iteration starts from the best move of the previous one, and the best move found so far is always available, so the computer answers within its budget on any board size.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public class IterativeDeepening {
+    private static final Logger logger = LoggerFactory.getLogger(IterativeDeepening.class);
+
+    // Default time budget per move in milliseconds
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 2000;
+
+    private Board board;
+    private AlphaBeta alphaBeta;
+    // Wall-clock budget per move in milliseconds, 0 for none
+    private long timeBudgetMillis = DEFAULT_TIME_BUDGET_MILLIS;
+    // Node budget per move, 0 for none
+    private long nodeBudget;
+    // Depth of the last iteration that finished
+    private int completedDepth;
+    // Depth of the first iteration
+    private int startDepth = 1;
+    // A helper shares the transposition table of another search and leaves
+    // its generation and statistics to the owner
+    private boolean helper;
+    // False when another class ages the shared transposition table and
+    // resets its statistics before the search starts
+    private boolean ownsTable = true;
+    // Half width of the window around the previous score, 0 for a full window
+    private int aspirationWindow;
+    // Principal variation of the last iteration that finished
+    private int[] principalVariation = new int[0];
+
+    /**
+     * Initialize iterative deepening with a game board
+     * @param board the current game board
+     */
+    public IterativeDeepening(Board board) {
+        this(board, new AlphaBeta(board));
+    }
+    /**
+     * Initialize iterative deepening with a game board and the alpha-beta
+     * search to deepen
+     * @param board the current game board
+     * @param alphaBeta the alpha-beta search on the same board
+     */
+    public IterativeDeepening(Board board, AlphaBeta alphaBeta) {
+        logger.debug("Constructor init...");
+        this.board = board;
+        this.alphaBeta = alphaBeta;
+    }
+    /**
+     * Set the game board
+     * @param board the game board
+     */
+    public void setGameBoard(Board board) {
+        this.board = board;
+        alphaBeta.setGameBoard(board);
+    }
+    /**
+     * Sets the depth of the first iteration
+     * @param startDepth the depth to start at
+     */
+    public void setStartDepth(int startDepth) {
+        this.startDepth = Math.max(1, startDepth);
+    }
+    /**
+     * Marks the search as a helper of another search sharing its
+     * transposition table
+     * @param helper true for a helper search
+     */
+    public void setHelper(boolean helper) {
+        this.helper = helper;
+    }
+    /**
+     * Sets whether the search ages the transposition table and resets its
+     * statistics when it starts, false when its owner does it before any
+     * other thread uses the table
+     * @param ownsTable true to age the table at the start of every search
+     */
+    public void setOwnsTable(boolean ownsTable) {
+        this.ownsTable = ownsTable;
+    }
+    /**
+     * Sets the aspiration window: each iteration after the first searches
+     * between the previous score minus and plus the window, and searches
+     * again with the full window when the score falls outside it
+     * @param aspirationWindow the half width of the window, 0 for a full window
+     */
+    public void setAspirationWindow(int aspirationWindow) {
+        this.aspirationWindow = Math.max(0, aspirationWindow);
+    }
+    /**
+     * Gets the half width of the aspiration window
+     * @return the half width, 0 for a full window
+     */
+    public int getAspirationWindow() {
+        return aspirationWindow;
+    }
+    /**
+     * Gets the principal variation of the last iteration that finished
+     * @return the cell subscripts of the expected line of play
+     */
+    public int[] getPrincipalVariation() {
+        return principalVariation.clone();
+    }
+    /**
+     * Gets the alpha-beta search being deepened
+     * @return the alpha-beta search
+     */
+    public AlphaBeta getAlphaBeta() {
+        return alphaBeta;
+    }
+    /**
+     * Sets the wall-clock budget per move
+     * @param timeBudgetMillis the budget in milliseconds, 0 for none
+     */
+    public void setTimeBudgetMillis(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+    /**
+     * Gets the wall-clock budget per move
+     * @return the budget in milliseconds, 0 for none
+     */
+    public long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+    /**
+     * Sets the node budget per move
+     * @param nodeBudget the maximum number of nodes, 0 for none
+     */
+    public void setNodeBudget(long nodeBudget) {
+        this.nodeBudget = nodeBudget;
+    }
+    /**
+     * Gets the node budget per move
+     * @return the maximum number of nodes, 0 for none
+     */
+    public long getNodeBudget() {
+        return nodeBudget;
+    }
+    /**
+     * Gets the depth of the last iteration that finished
+     * @return the completed depth
+     */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+    /**
+     * Asks a running search to stop and return its best move so far.
+     * May be called from any thread; a helper cancelled before it starts
+     * returns at once.
+     */
+    public void cancel() {
+        alphaBeta.stop();
+    }
+    /**
+     * Withdraws a cancel that was not meant for the next search. A helper
+     * search is cleared this way by the thread that starts it, any other
+     * search clears itself when search is called.
+     */
+    public void clearCancel() {
+        alphaBeta.clearStop();
+    }
+    /**
+     * The search method deepens the alpha-beta search until the budget runs
+     * out, the game value is proven or the end of the game is in reach,
+     * and assigns the best move found to the game board as the computer move.
+     * @param player	The mark of the player to move.
+     * @return			The score of the best move, AlphaBeta.WIN_SCORE for a proven win, -AlphaBeta.WIN_SCORE for a proven loss.
+     */
+    public int search(char player) {
+        long start = System.nanoTime();
+        if (!helper)
+            alphaBeta.clearStop();
+        completedDepth = 0;
+        principalVariation = new int[0];
+        int emptyCells = board.getEmptyCellCount();
+        // A full board has no move to choose, as in AlphaBeta.search
+        if (emptyCells == 0)
+            return AlphaBeta.DRAW_SCORE;
+        alphaBeta.setLimits(timeBudgetMillis > 0 ? start + timeBudgetMillis * 1_000_000L : Long.MAX_VALUE,
+            nodeBudget > 0 ? nodeBudget : Long.MAX_VALUE);
+        if (helper || !ownsTable)
+            alphaBeta.resetStatistics();
+        else
+            alphaBeta.newSearch();
+        int bestMove = -1;
+        int bestScore = AlphaBeta.DRAW_SCORE;
+        try {
+            for (int depth = Math.min(startDepth, emptyCells); depth <= emptyCells; depth++) {
+                int score = aspirationSearch(player, depth, bestMove, bestScore);
+                if (alphaBeta.isAborted()) {
+                    // The previous best is searched first, so the best finished root
+                    // move of the aborted iteration has the deeper score
+                    if (alphaBeta.getRootMovesSearched() > 0) {
+                        bestMove = alphaBeta.getRootBestMove();
+                        bestScore = alphaBeta.getRootBestScore();
+                    }
+                    break;
+                }
+                bestMove = alphaBeta.getRootBestMove();
+                bestScore = score;
+                completedDepth = depth;
+                principalVariation = alphaBeta.getPrincipalVariation();
+                logger.debug("Depth: {} | Score: {} | Point: {} | Nodes: {} | PV: {}", depth, score,
+                    alphaBeta.getCell(bestMove), alphaBeta.getNodeCount(), Arrays.toString(principalVariation));
+                // A proven result does not change with more depth
+                if (Math.abs(score) >= AlphaBeta.WIN_SCORE)
+                    break;
+            }
+        } finally {
+            alphaBeta.clearLimits();
+        }
+        if (bestMove < 0) {
+            // The budget ran out before the first root move finished
+            bestMove = alphaBeta.getRootBestMove() >= 0 ? alphaBeta.getRootBestMove() : board.getEmptyCell(0);
+        }
+        board.setComputerMove(alphaBeta.getCell(bestMove));
+        alphaBeta.logStatistics(bestScore, bestMove);
+        logger.debug("Iterative deepening finished depth {} in {} ms", completedDepth,
+            (System.nanoTime() - start) / 1_000_000L);
+        return bestScore;
+    }
+    /**
+     * Runs one iteration inside the aspiration window around the previous
+     * score, searching again with the full window when it fails low or high
+     * @param player	The mark of the player to move.
+     * @param depth		The number of plies to look ahead.
+     * @param firstMove	The best move of the previous iteration, -1 for none.
+     * @param previous	The score of the previous iteration.
+     * @return			The exact score of the iteration, undefined if aborted.
+     */
+    private int aspirationSearch(char player, int depth, int firstMove, int previous) {
+        if (aspirationWindow == 0 || firstMove < 0)
+            return alphaBeta.search(player, depth, firstMove);
+        int alpha = previous - aspirationWindow;
+        int beta = previous + aspirationWindow;
+        int score = alphaBeta.search(player, depth, firstMove, alpha, beta);
+        if (alphaBeta.isAborted() || (score > alpha && score < beta))
+            return score;
+        logger.debug("Depth: {} | Score {} outside window [{}, {}], searching again", depth, score, alpha, beta);
+        return alphaBeta.search(player, depth, firstMove);
+    }
+}
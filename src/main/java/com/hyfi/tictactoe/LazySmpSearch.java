@@ -0,0 +1,203 @@
+package com.hyfi.tictactoe;
+// Imports
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The LazySmpSearch class runs the iterative deepening search on several threads at once, all on the same position. The threads share one lock-free transposition table, and each helper thread starts its root moves at a different place, and every other helper one ply deeper, so the threads spread over the tree and fill the table for each other. The move is always taken from the main thread, the helpers only make it faster.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public class LazySmpSearch {
+    private static final Logger logger = LoggerFactory.getLogger(LazySmpSearch.class);
+
+    private Board board;
+    // Transposition table shared by all threads
+    private final SharedTranspositionTable table;
+    // The search whose move is played
+    private final IterativeDeepening main;
+    // Searches on copies of the game board that help fill the table
+    private final List<IterativeDeepening> helpers = new ArrayList<>();
+    // Threads running the helpers, created on the first search
+    private ExecutorService executor;
+    // Nodes visited by all threads in the last search
+    private long nodeCount;
+
+    /**
+     * Initialize the search with a game board, using a thread per core
+     * @param board the current game board
+     */
+    public LazySmpSearch(Board board) {
+        this(board, Runtime.getRuntime().availableProcessors());
+    }
+    /**
+     * Initialize the search with a game board and a number of threads
+     * @param board the current game board
+     * @param threads the number of threads including the main thread
+     */
+    public LazySmpSearch(Board board, int threads) {
+        logger.debug("Constructor init...");
+        this.board = board;
+        this.table = new SharedTranspositionTable();
+        AlphaBeta alphaBeta = new AlphaBeta(board, table);
+        this.main = new IterativeDeepening(board, alphaBeta);
+        // The table is aged in search, before the helpers start storing
+        main.setOwnsTable(false);
+        for (int i = 1; i < Math.max(1, threads); i++) {
+            AlphaBeta engine = new AlphaBeta(null, table);
+            engine.setRootRotation(i);
+            IterativeDeepening helper = new IterativeDeepening(null, engine);
+            helper.setHelper(true);
+            helper.setStartDepth(i % 2 == 1 ? 2 : 1);
+            helpers.add(helper);
+        }
+    }
+    /**
+     * Set the game board
+     * @param board the game board
+     */
+    public void setGameBoard(Board board) {
+        this.board = board;
+        main.setGameBoard(board);
+    }
+    /**
+     * Sets the wall-clock budget per move of every thread
+     * @param timeBudgetMillis the budget in milliseconds, 0 for none
+     */
+    public void setTimeBudgetMillis(long timeBudgetMillis) {
+        main.setTimeBudgetMillis(timeBudgetMillis);
+        for (IterativeDeepening helper : helpers)
+            helper.setTimeBudgetMillis(timeBudgetMillis);
+    }
+    /**
+     * Gets the wall-clock budget per move
+     * @return the budget in milliseconds, 0 for none
+     */
+    public long getTimeBudgetMillis() {
+        return main.getTimeBudgetMillis();
+    }
+    /**
+     * Sets the node budget per move of the main thread
+     * @param nodeBudget the maximum number of nodes, 0 for none
+     */
+    public void setNodeBudget(long nodeBudget) {
+        main.setNodeBudget(nodeBudget);
+    }
+    /**
+     * Gets the node budget per move of the main thread
+     * @return the maximum number of nodes, 0 for none
+     */
+    public long getNodeBudget() {
+        return main.getNodeBudget();
+    }
+    /**
+     * Gets the number of threads searching
+     * @return the thread count including the main thread
+     */
+    public int getThreads() {
+        return helpers.size() + 1;
+    }
+    /**
+     * Gets the shared transposition table
+     * @return the transposition table
+     */
+    public SharedTranspositionTable getTranspositionTable() {
+        return table;
+    }
+    /**
+     * Gets the depth of the last iteration the main thread finished
+     * @return the completed depth
+     */
+    public int getCompletedDepth() {
+        return main.getCompletedDepth();
+    }
+    /**
+     * Gets the number of positions visited by all threads in the last search
+     * @return the node count
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+    /**
+     * Asks a running search to stop and return its best move so far.
+     * May be called from any thread.
+     */
+    public void cancel() {
+        main.cancel();
+    }
+    /**
+     * Stops the helper threads. The search can still be used afterwards,
+     * it starts new threads on the next call.
+     */
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+    /**
+     * The search method runs the main search with the helpers beside it
+     * and assigns the move of the main search to the game board as the
+     * computer move.
+     * @param player	The mark of the player to move.
+     * @return			The score of the best move, AlphaBeta.WIN_SCORE for a proven win, -AlphaBeta.WIN_SCORE for a proven loss.
+     */
+    public int search(char player) {
+        long start = System.nanoTime();
+        // Only the owning thread ages the table, before any helper stores
+        table.newSearch();
+        table.resetStatistics();
+        List<Future<?>> running = new ArrayList<>();
+        if (!helpers.isEmpty()) {
+            if (executor == null)
+                executor = Executors.newFixedThreadPool(helpers.size(), runnable -> {
+                    Thread thread = new Thread(runnable, "lazy-smp-helper");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            for (IterativeDeepening helper : helpers) {
+                helper.setGameBoard(new Board(board));
+                // Cleared here, so a cancel from stopHelpers is never lost
+                helper.clearCancel();
+                running.add(executor.submit(() -> helper.search(player)));
+            }
+        }
+        int score;
+        try {
+            score = main.search(player);
+        } finally {
+            stopHelpers(running);
+        }
+        nodeCount = main.getAlphaBeta().getNodeCount();
+        for (IterativeDeepening helper : helpers)
+            nodeCount += helper.getAlphaBeta().getNodeCount();
+        logger.debug("Lazy SMP on {} threads | Depth: {} | Nodes: {} | Hit rate: {} | Lost races: {} | {} ms",
+            getThreads(), main.getCompletedDepth(), nodeCount, table.getHitRate(), table.getLostRaceCount(),
+            (System.nanoTime() - start) / 1_000_000L);
+        return score;
+    }
+    /**
+     * Cancels the helpers and waits for them to finish
+     * @param running the futures of the running helpers
+     */
+    private void stopHelpers(List<Future<?>> running) {
+        for (int i = 0; i < running.size(); i++)
+            helpers.get(i).cancel();
+        for (Future<?> future : running) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                logger.debug("Helper search failed", e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.hyfi.tictactoe;
+// Imports
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The LineTable class lists the winning lines of a board shape as cell subscripts, and for every cell the lines through it. A line is any run of winLength cells in a row, a column or either diagonal direction, so an m x n board where k in a row wins has far more lines than rows and columns once k is smaller than the board. A move can only complete a line through its own cell, so a win check after a move only looks at those lines instead of the whole board. Tables are built once per board shape and shared.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public final class LineTable {
+
+    // Tables already built, by board shape
+    private static final Map<List<Integer>, LineTable> TABLES = new ConcurrentHashMap<>();
+    // Directions of a line as row and column steps: across, down, down-right, up-right
+    private static final int[][] DIRECTIONS = { {0, 1}, {1, 0}, {1, 1}, {-1, 1} };
+
+    // The board size, the number of rows
+    private final int size;
+    // The number of columns
+    private final int columns;
+    // The number of marks in a row that wins
+    private final int winLength;
+    // Cell subscripts of every line, rows and columns first, then the diagonals
+    private final int[][] lines;
+    // Indexes into lines of the lines through each cell
+    private final int[][] cellLines;
+    // Bitboard mask of every line, null for boards too large for a long
+    private final long[] masks;
+
+    /**
+     * Builds the table of a board shape
+     * @param rows		The number of rows
+     * @param columns	The number of columns
+     * @param winLength	The number of marks in a row that wins
+     */
+    private LineTable(int rows, int columns, int winLength) {
+        this.size = rows;
+        this.columns = columns;
+        this.winLength = winLength;
+        List<int[]> found = new ArrayList<>();
+        // Rows and columns alternate, so a square board where the whole row
+        // wins keeps the line order of row i, column i, ... , diagonals
+        for (int i = 0; i < Math.max(rows, columns); i++) {
+            if (i < rows)
+                addLines(found, i, i, 0, columns - winLength, DIRECTIONS[0]);
+            if (i < columns)
+                addLines(found, 0, rows - winLength, i, i, DIRECTIONS[1]);
+        }
+        addLines(found, 0, rows - winLength, 0, columns - winLength, DIRECTIONS[2]);
+        addLines(found, winLength - 1, rows - 1, 0, columns - winLength, DIRECTIONS[3]);
+        this.lines = found.toArray(new int[0][]);
+        int cells = rows * columns;
+        int[] counts = new int[cells];
+        for (int[] line : lines)
+            for (int sub : line)
+                counts[sub]++;
+        this.cellLines = new int[cells][];
+        for (int sub = 0; sub < cells; sub++)
+            cellLines[sub] = new int[counts[sub]];
+        int[] filled = new int[cells];
+        for (int l = 0; l < lines.length; l++)
+            for (int sub : lines[l])
+                cellLines[sub][filled[sub]++] = l;
+        if (cells <= Long.SIZE) {
+            this.masks = new long[lines.length];
+            for (int l = 0; l < lines.length; l++)
+                for (int sub : lines[l])
+                    masks[l] |= 1L << sub;
+        } else {
+            this.masks = null;
+        }
+    }
+    /**
+     * Adds the lines of one direction that start in a range of cells
+     * @param found		The lines found so far
+     * @param fromRow	The first start row
+     * @param toRow		The last start row
+     * @param fromCol	The first start column
+     * @param toCol		The last start column
+     * @param step		The row and column step of the direction
+     */
+    private void addLines(List<int[]> found, int fromRow, int toRow, int fromCol, int toCol, int[] step) {
+        for (int r = fromRow; r <= toRow; r++) {
+            for (int c = fromCol; c <= toCol; c++) {
+                int[] line = new int[winLength];
+                for (int i = 0; i < winLength; i++)
+                    line[i] = (r + i * step[0]) * columns + c + i * step[1];
+                found.add(line);
+            }
+        }
+    }
+    /**
+     * Gets the table of a square board where a whole row, column or
+     * diagonal wins, building it on first use
+     * @param size the board size
+     * @return the line table
+     */
+    public static LineTable forSize(int size) {
+        return forShape(size, size, size);
+    }
+    /**
+     * Gets the table of a board shape, building it on first use
+     * @param rows		The number of rows
+     * @param columns	The number of columns
+     * @param winLength	The number of marks in a row that wins, at most the longer side
+     * @return			The line table
+     * @throws IllegalArgumentException if no line of winLength fits on the board
+     */
+    public static LineTable forShape(int rows, int columns, int winLength) {
+        if (rows < 1 || columns < 1 || winLength < 1 || winLength > Math.max(rows, columns))
+            throw new IllegalArgumentException("No line of " + winLength + " fits on a " + rows + "x" + columns + " board");
+        return TABLES.computeIfAbsent(Arrays.asList(rows, columns, winLength),
+            shape -> new LineTable(shape.get(0), shape.get(1), shape.get(2)));
+    }
+    /**
+     * Gets the board size
+     * @return the board size, the number of rows
+     */
+    public int getSize() {
+        return size;
+    }
+    /**
+     * Gets the number of columns
+     * @return the column count
+     */
+    public int getColumnCount() {
+        return columns;
+    }
+    /**
+     * Gets the number of marks in a row that wins
+     * @return the win length
+     */
+    public int getWinLength() {
+        return winLength;
+    }
+    /**
+     * Gets the number of lines
+     * @return the line count
+     */
+    public int getLineCount() {
+        return lines.length;
+    }
+    /**
+     * Gets the cells of a line. The array is shared and must not be changed.
+     * @param line the line index
+     * @return the cell subscripts of the line
+     */
+    public int[] getLine(int line) {
+        return lines[line];
+    }
+    /**
+     * Gets the lines through a cell. The array is shared and must not be changed.
+     * @param sub the cell subscript
+     * @return the indexes of the lines through the cell
+     */
+    public int[] getLinesThrough(int sub) {
+        return cellLines[sub];
+    }
+    /**
+     * Gets the bitboard mask of every line. The array is shared and must not
+     * be changed.
+     * @return the line masks, null if the board is too large for a bitboard
+     */
+    public long[] getMasks() {
+        return masks;
+    }
+    /**
+     * Gets the bitboard mask of a line
+     * @param line the line index
+     * @return the mask with the bits of the line's cells set
+     */
+    public long getMask(int line) {
+        return masks[line];
+    }
+}
@@ -8,22 +8,39 @@ package com.hyfi.tictactoe;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 
 public class Minimax {
     private static final Logger logger = LoggerFactory.getLogger(Minimax.class);
 
     private Board board;
-    private PointAndScore printScore = new PointAndScore();
+    // Writes the game statistics, shared with the game so a trace holds all its records
+    private PointAndScore printScore;
+    // Number of positions visited since the last reset
+    private long nodeCount;
+    // Empty cell subscripts of each position on the current line, indexed by
+    // its number of empty cells, which falls by one with every move
+    private int[][] moveBuffers = new int[0][];
+    // Skips the game statistics written for every position, so a warmed up
+    // search allocates nothing
+    private boolean allocationFree;
     /**
     * Initialize minimax algorithm with a game board
     * @param board the current game board
     */
     public Minimax(Board board) {
+        this(board, new PointAndScore());
+    }
+    /**
+    * Initialize minimax algorithm with a game board and the writer of the
+    * game statistics
+    * @param board the current game board
+    * @param printScore the writer of the game statistics, shared with the game
+    */
+    public Minimax(Board board, PointAndScore printScore) {
        logger.debug("Constructor init...");
         this.board = board;
+        this.printScore = printScore;
     }
     /**
      * Set the game board
@@ -32,6 +49,43 @@ public class Minimax {
     public void setGameBoard(Board board){
         this.board = board;
     }
+    /**
+     * Gets the number of positions visited since the last reset
+     * @return the node count
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+    /**
+     * Sets the allocation-free mode, which plays the same moves without
+     * writing the game statistics of every position searched
+     * @param allocationFree true to skip the statistics
+     */
+    public void setAllocationFree(boolean allocationFree) {
+        this.allocationFree = allocationFree;
+    }
+    /**
+     * Checks if the search runs without writing game statistics
+     * @return true in the allocation-free mode
+     */
+    public boolean isAllocationFree() {
+        return allocationFree;
+    }
+    /**
+     * Sets the binary trace the game statistics go to instead of the
+     * text lines of PointAndScore.DATA_FILE, for every user of the
+     * PointAndScore this search writes through
+     * @param trace the trace, null to write text lines
+     */
+    public void setSearchTrace(SearchTrace trace) {
+        printScore.setSearchTrace(trace);
+    }
+    /**
+     * Resets the number of positions visited
+     */
+    public void resetNodeCount() {
+        this.nodeCount = 0;
+    }
     /**
      * The setBestMove method returns the all moves that end
      * in a win for the computer or a draw
@@ -49,14 +103,22 @@ public class Minimax {
             if (depth == 0)
             if (score > 0 && max > 0) {
                 board.setComputerMove(point);
-                printScore.printBestScore(point, score, avilCells, i, max, depth, board.getRound());
-                logger.debug("Round: {0} | Point: {1} | Score: {2} | Available Cells: {3} \n\t\t| Itteration: {4} @ Depth: {5} | GAME RESULTS: {6}",board.getRound() , point, score, avilCells, i, depth, (max == 1 ? "$--WIN--$" : max == 0 ? "--DRAW--" : "LOSS"));
+                board.setComputerScore(score);
+                board.setDepth(avilCells);
+                if (!allocationFree)
+                    printScore.printBestScore(point, score, avilCells, i, max, depth, board.getRound());
+                if (logger.isDebugEnabled())
+                    logger.debug("Round: {0} | Point: {1} | Score: {2} | Available Cells: {3} \n\t\t| Itteration: {4} @ Depth: {5} | GAME RESULTS: {6}",board.getRound() , point, score, avilCells, i, depth, (max == 1 ? "$--WIN--$" : max == 0 ? "--DRAW--" : "LOSS"));
                 return;
             }
             else if (score == 0 && max == 0) {
                 board.setComputerMove(point);
-                printScore.printBestScore(point, score, avilCells, i, max, depth, board.getRound());
-                logger.debug("Round: {0} | Point: {1} | Score: {2} | Available Cells: {3} \n\t\t| Itteration: {4} @ Depth: {5} | GAME RESULTS: {6}",board.getRound() , point, score, avilCells, i, depth, (max == 1 ? "$--WIN--$" : max == 0 ? "--DRAW--" : "LOSS"));
+                board.setComputerScore(score);
+                board.setDepth(avilCells);
+                if (!allocationFree)
+                    printScore.printBestScore(point, score, avilCells, i, max, depth, board.getRound());
+                if (logger.isDebugEnabled())
+                    logger.debug("Round: {0} | Point: {1} | Score: {2} | Available Cells: {3} \n\t\t| Itteration: {4} @ Depth: {5} | GAME RESULTS: {6}",board.getRound() , point, score, avilCells, i, depth, (max == 1 ? "$--WIN--$" : max == 0 ? "--DRAW--" : "LOSS"));
                 return;
             }
         } catch (IOException e) {
@@ -72,25 +134,22 @@ public class Minimax {
      * @param point		The point returned from a win
      * @param depth		The current iteration of game play
      * @param i			The current index to be captured
-     * @param availableCells	Available cells of current depth
+     * @param moveCount	Number of available cells of the position the move is made in,
+     * 					a draw on a full board is scored by minimax
      * @return			The winning score of current depth
      * @throws IOException throw exectption for file I/O event
      */
-    public int aiComputerMove(Point point, int depth, int i, List<Point> availableCells) throws IOException {
+    public int aiComputerMove(Point point, int depth, int i, int moveCount) throws IOException {
 
-        board.placeAMove(point, board.getComputerMark());
-        ;
-        if (board.hasPlayerWon(board.getComputerMark())) {
-            board.setComputerScore(1);		// Returns value to "currentScore"
-            logger.debug("Round: {0} | Point: {1} | Available Cells: {2} \n\t\t| Itteration: {3} @ Depth: {4}  {5} | GAME RESULTS: {6}",board.getRound() , point, availableCells, i, depth);
+        board.makeMove(point, board.getComputerMark());
+        // Only the lines through the cell just played can have been completed
+        if (board.isWinningMove(point)) {
+            if (logger.isDebugEnabled())
+                logger.debug("Round: {0} | Point: {1} | Available Cells: {2} \n\t\t| Itteration: {3} @ Depth: {4}  {5} | GAME RESULTS: {6}",board.getRound() , point, moveCount, i, depth);
             // Captures statistical data of possible decision tree return best moves
             // printScore.captureComputerMove(board.getRound(), board.getComputerScore(), point, depth, i, 1);
-        }
-        else if (availableCells.isEmpty()) {
-            board.setComputerScore(0);		// Returns value to "currentScore"
-            logger.debug("Round: {0} | Point: {1} | Available Cells: {2} \n\t\t| Itteration: {3} @ Depth: {4}  {5} | GAME RESULTS: {6}",board.getRound() , point, availableCells, i, depth);
-            // Captures statistical data of AI Computer draw after play is made
-            // printScore.captureComputerMove(board.getRound(), board.getComputerScore(), point, depth, i, 0);
+            nodeCount++;
+            return 1;
         }
         // Evaluates game state after a move is placed on the game board and returns
         // 0 for draw or 1 for AI computer win or -1 for AI human win
@@ -102,23 +161,20 @@ public class Minimax {
      * @param point		The point returned from a win
      * @param depth		The current iteration of game play
      * @param i			The current index to be captured
-     * @param availableCells	Available cells of current depth
+     * @param moveCount	Number of available cells of the position the move is made in,
+     * 					a draw on a full board is scored by minimax
      * @return			The winning score of current depth
      * @throws IOException throw exectption for file I/O event
      */
-    public int aiHumanMove(Point point, int  depth, int i, List<Point> availableCells) throws IOException {
+    public int aiHumanMove(Point point, int  depth, int i, int moveCount) throws IOException {
 
-        board.placeAMove(point, board.getHumanMark());
-        if (board.hasPlayerWon(board.getHumanMark())) {
-            board.sethumanScore(-1);	// Returns value to "currentScore"
+        board.makeMove(point, board.getHumanMark());
+        // Only the lines through the cell just played can have been completed
+        if (board.isWinningMove(point)) {
             // Captures statistical data of decision upon AI human win
             // printScore.captureHumanMove(board.getRound(), board.getComputerScore(), point, depth, i, -1);
-        }
-        else if (availableCells.isEmpty()) {
-            board.sethumanScore(0);		// Returns value to "currentScore"
-            return 0;
-            // Captures statistical data of AI human draw after play is made
-            // printScore.captureHumanMove(board.getRound(), board.getComputerScore(), point, depth, i, 0);
+            nodeCount++;
+            return -1;
         }
         // Evaluates game state after a move is placed on the game board and returns
         // 0 for draw or 1 for AI computer win or -1 for AI human win
@@ -137,13 +193,17 @@ public class Minimax {
      */
     public int minimax (int depth, char player) throws IOException  {
         // int difficulty = 12;
-        // Captures all available cells into an array list.
-        List<Point> availableCells = new ArrayList<>(board.getAvailableCells());
-        if (board.hasPlayerWon(board.getComputerMark()))
+        nodeCount++;
+        // Captures all available cells into the buffer of this position.
+        int[] availableCells = moveBuffer(board.getEmptyCellCount());
+        int moveCount = board.getAvailableCells(availableCells);
+        // Deeper positions were already checked by the move that reached them
+        boolean rootPosition = depth == 0;
+        if (rootPosition && board.hasPlayerWon(board.getComputerMark()))
             return 1;  		// Returns value to "currentScore" on win
-        else if (board.hasPlayerWon(board.getHumanMark()))
+        else if (rootPosition && board.hasPlayerWon(board.getHumanMark()))
             return -1;		// Returns value to "currentScore" on loss
-        else if (availableCells.isEmpty())
+        else if (moveCount == 0)
             return 0;		// Returns value to "currentScore" on tie
         // Set min value to +INFINITY
         int min = Integer.MAX_VALUE;
@@ -151,63 +211,63 @@ public class Minimax {
         int max = Integer.MIN_VALUE;
         // Iterates through remaining moves of game board to maximum
         // depth of moves remaining on the board.
-        for (int i = 0; i < availableCells.size(); i++) {
-            board.setDepth(availableCells.size());
-            
+        for (int i = 0; i < moveCount; i++) {
             /**
              * Controls the depth of the tree 2^N^N where N is the length of the table
              */
             // if (availableCells.size() == difficulty) break;
             // The cell/point value to be tested for all possible outcomes
-            Point point = availableCells.get(i);
-            point.setBoardSize(this.board.getGameBoard().length);
+            Point point = board.getPoint(availableCells[i]);
             // logger.debug("Point: "+point.toString());
             // Plays a move for computer AI
             if (player == board.getComputerMark()) {
-                int currentScore = aiComputerMove(point, availableCells.size(), i, availableCells);
+                int currentScore = aiComputerMove(point, moveCount, i, moveCount);
                 // break if their a loss for the computer
                 // if (currentScore < -1) continue;
                 // Returns the maximum value for the best move of all iterations
                 max = Math.max(currentScore, max);
                 printScore.setMax(max);
                 // logger.debug("Point: "+point.toString()+" | Row: "+point.getRow()+" | Column: "+point.getCol()+" | Max: "+max+" | Min: "+min);
-                setBestMove(point, currentScore, availableCells.size(), i, max, depth);
-                printScore.terminalWinner(board.getRound(),point, currentScore, availableCells.size(), max, depth, i);
+                setBestMove(point, currentScore, moveCount, i, max, depth);
+                if (!allocationFree)
+                    printScore.terminalWinner(board.getRound(),point, currentScore, moveCount, max, depth, i);
                 // If AI computer wins playing index "i" as the next move in the given iteration. The index
                 // is reset and added to the pool of available cells as the next index "i" is tested recursively.
-                logger.debug("Point: "+point.toString()+" | Row: "+point.getRow()+" | Column: "+point.getCol());
-                if (currentScore == 1 || currentScore == 0 || currentScore == -1) 
-                {
-                    board.getGameBoard()[point.getRow()][point.getCol()] = board.getNoPlayer();
-                    if (max == 1 || currentScore == 1) 
-                    {
-                        board.getGameBoard()[point.getRow()][point.getCol()] = board.getNoPlayer();
-                        break;
-                    }
-                }
+                if (logger.isDebugEnabled())
+                    logger.debug("Point: {} | Row: {} | Column: {}", point, point.getRow(), point.getCol());
+                board.unmakeMove();
+                if (currentScore == 1)
+                    break;
                 // Plays a move for human AI
             } else if (player == board.getHumanMark()) {
-                int currentScore = aiHumanMove(point, availableCells.size(), i, availableCells);
+                int currentScore = aiHumanMove(point, moveCount, i, moveCount);
                 // break if their is a loss for the human
                 // if (currentScore < 1 ) continue;
                 // Returns the minimum value for the best move of all iterations
                 min = Math.min(currentScore, min);
-                printScore.terminalWinner(board.getRound(),point, currentScore, availableCells.size(), min, depth, i);
+                if (!allocationFree)
+                    printScore.terminalWinner(board.getRound(),point, currentScore, moveCount, min, depth, i);
                 // If AI computer wins playing index "i" as the next move in the given iteration. The index
                 // is reset and added to the pool of available cells as the next index "i" is tested recursively.
-                if (currentScore == 1 || currentScore == 0 || currentScore == -1) 
-                {
-                    board.getGameBoard()[point.getRow()][point.getCol()] = board.getNoPlayer();
-                    if (min == -1 || currentScore == -1) 
-                    {
-                        board.getGameBoard()[point.getRow()][point.getCol()] = board.getNoPlayer();
-                        break;
-                    }
-                }
+                board.unmakeMove();
+                if (currentScore == -1)
+                    break;
             }
-            board.getGameBoard()[point.getRow()][point.getCol()] = board.getNoPlayer();
         }
         return player == board.getComputerMark() ? max : min;
     }
+    /**
+     * Gets the move buffer of a position, growing the buffers when the
+     * board is larger than any searched before
+     * @param emptyCells	The number of empty cells of the position
+     * @return				The buffer of the position
+     */
+    private int[] moveBuffer(int emptyCells) {
+        if (emptyCells >= moveBuffers.length || moveBuffers[emptyCells].length < emptyCells) {
+            int cells = board.getRowCount() * board.getColumnCount();
+            moveBuffers = new int[cells + 1][cells];
+        }
+        return moveBuffers[emptyCells];
+    }
 
 }
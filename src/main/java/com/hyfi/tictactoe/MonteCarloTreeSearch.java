@@ -0,0 +1,474 @@
+package com.hyfi.tictactoe;
+// Imports
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The MonteCarloTreeSearch class picks the computer move by Monte Carlo tree search instead of searching the whole game tree. Each iteration walks down the tree by the UCT rule, adds one new position and plays random moves on a compact copy of the board until the game ends. The search stops after a playout or time budget, so it answers in bounded time on any board size. With several threads every thread grows its own tree from the same position (root parallelism) and the visit counts of the root moves are added up at the end.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public class MonteCarloTreeSearch {
+    private static final Logger logger = LoggerFactory.getLogger(MonteCarloTreeSearch.class);
+
+    // Default number of playouts per move, shared by all threads
+    public static final int DEFAULT_PLAYOUT_BUDGET = 50_000;
+    // Default time budget per move in milliseconds
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 1000;
+    // Default weight of the exploration term of UCT
+    public static final double DEFAULT_EXPLORATION = Math.sqrt(2);
+    // Marks of the compact board
+    private static final byte EMPTY = 0;
+    private static final byte FIRST = 1;
+    private static final byte SECOND = 2;
+    // Number of iterations between two clock reads
+    private static final int CLOCK_CHECK_INTERVAL = 63;
+
+    private Board board;
+    // Playouts per move, 0 for none
+    private int playoutBudget = DEFAULT_PLAYOUT_BUDGET;
+    // Wall-clock budget per move in milliseconds, 0 for none
+    private long timeBudgetMillis = DEFAULT_TIME_BUDGET_MILLIS;
+    // Weight of the exploration term of UCT
+    private double exploration = DEFAULT_EXPLORATION;
+    // Number of trees grown in parallel
+    private int threads;
+    // Seed of the random playouts, each thread adds its index
+    private long seed = 0x2545F4914F6CDD1DL;
+    // Threads growing the extra trees, created on the first search
+    private ExecutorService executor;
+    // Playouts run by all threads in the last search
+    private long playoutCount;
+
+    /**
+     * Initialize the search with a game board, growing a tree per core
+     * @param board the current game board
+     */
+    public MonteCarloTreeSearch(Board board) {
+        this(board, Runtime.getRuntime().availableProcessors());
+    }
+    /**
+     * Initialize the search with a game board and a number of threads
+     * @param board the current game board
+     * @param threads the number of trees grown in parallel
+     */
+    public MonteCarloTreeSearch(Board board, int threads) {
+        logger.debug("Constructor init...");
+        this.board = board;
+        this.threads = Math.max(1, threads);
+    }
+    /**
+     * Set the game board
+     * @param board the game board
+     */
+    public void setGameBoard(Board board) {
+        this.board = board;
+    }
+    /**
+     * Sets the number of playouts per move, shared by all threads
+     * @param playoutBudget the maximum number of playouts, 0 for none
+     */
+    public void setPlayoutBudget(int playoutBudget) {
+        this.playoutBudget = playoutBudget;
+    }
+    /**
+     * Gets the number of playouts per move
+     * @return the maximum number of playouts, 0 for none
+     */
+    public int getPlayoutBudget() {
+        return playoutBudget;
+    }
+    /**
+     * Sets the wall-clock budget per move
+     * @param timeBudgetMillis the budget in milliseconds, 0 for none
+     */
+    public void setTimeBudgetMillis(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+    /**
+     * Gets the wall-clock budget per move
+     * @return the budget in milliseconds, 0 for none
+     */
+    public long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+    /**
+     * Sets the weight of the exploration term of UCT
+     * @param exploration the exploration constant
+     */
+    public void setExploration(double exploration) {
+        this.exploration = exploration;
+    }
+    /**
+     * Gets the weight of the exploration term of UCT
+     * @return the exploration constant
+     */
+    public double getExploration() {
+        return exploration;
+    }
+    /**
+     * Sets the seed of the random playouts. With a playout budget and no
+     * time budget the same seed gives the same move.
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+    /**
+     * Gets the number of trees grown in parallel
+     * @return the thread count
+     */
+    public int getThreads() {
+        return threads;
+    }
+    /**
+     * Gets the number of playouts run by all threads in the last search
+     * @return the playout count
+     */
+    public long getPlayoutCount() {
+        return playoutCount;
+    }
+    /**
+     * Stops the threads growing the extra trees. The search can still be
+     * used afterwards, it starts new threads on the next call.
+     */
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+    /**
+     * The search method runs the playouts, assigns the most visited root
+     * move to the game board as the computer move and returns its value.
+     * @param player	The mark of the player to move.
+     * @return			The share of playouts through the chosen move won by player, draws count half.
+     */
+    public double search(char player) {
+        long start = System.nanoTime();
+        long deadline = timeBudgetMillis > 0 ? start + timeBudgetMillis * 1_000_000L : Long.MAX_VALUE;
+        Position root = new Position(board, player);
+        if (root.emptyCount == 0 || root.hasWon(FIRST) || root.hasWon(SECOND))
+            return 0.5;
+        int perThread = playoutBudget > 0 ? Math.max(1, playoutBudget / threads) : Integer.MAX_VALUE;
+
+        List<Future<Node>> running = new ArrayList<>();
+        if (threads > 1) {
+            if (executor == null)
+                executor = Executors.newFixedThreadPool(threads - 1, runnable -> {
+                    Thread thread = new Thread(runnable, "mcts-worker");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            for (int i = 1; i < threads; i++) {
+                SplittableRandom random = new SplittableRandom(seed + i);
+                running.add(executor.submit(() -> grow(root, perThread, deadline, random)));
+            }
+        }
+        List<Node> trees = new ArrayList<>();
+        trees.add(grow(root, perThread, deadline, new SplittableRandom(seed)));
+        for (Future<Node> future : running) {
+            try {
+                trees.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                logger.debug("Tree search failed", e.getCause());
+            }
+        }
+
+        // Add up the root statistics of all trees
+        long[] visits = new long[root.cells.length];
+        double[] wins = new double[root.cells.length];
+        playoutCount = 0;
+        for (Node tree : trees) {
+            playoutCount += tree.visits;
+            for (int i = 0; i < tree.childCount; i++) {
+                Node child = tree.children[i];
+                visits[child.move] += child.visits;
+                wins[child.move] += child.wins;
+            }
+        }
+        // The most visited move, the lowest subscript on a tie
+        int best = -1;
+        for (int sub = 0; sub < visits.length; sub++) {
+            if (visits[sub] > 0 && (best < 0 || visits[sub] > visits[best]))
+                best = sub;
+        }
+        if (best < 0)
+            best = root.empties[0];
+        double value = visits[best] == 0 ? 0.5 : wins[best] / visits[best];
+        board.setComputerMove(board.getPoint(best));
+        logger.debug("MCTS on {} threads | Playouts: {} | Point: {} | Visits: {} | Value: {} | {} ms",
+            threads, playoutCount, board.getComputerMove(), visits[best], value,
+            (System.nanoTime() - start) / 1_000_000L);
+        return value;
+    }
+    /**
+     * Grows one tree from the root position
+     * @param root		The root position, not changed
+     * @param playouts	The maximum number of playouts
+     * @param deadline	The System.nanoTime at which to stop
+     * @param random	The source of the random moves of this thread
+     * @return			The root node of the tree
+     */
+    private Node grow(Position root, int playouts, long deadline, SplittableRandom random) {
+        Position position = new Position(root.lineTable);
+        // The root is reached by a move of the player not to move
+        Node tree = new Node(null, -1, other(root.toMove), root);
+        for (int i = 0; i < playouts; i++) {
+            if ((i & CLOCK_CHECK_INTERVAL) == 0 && System.nanoTime() >= deadline)
+                break;
+            position.copyFrom(root);
+            Node node = tree;
+            // Selection
+            while (node.result < 0 && node.untriedCount == 0) {
+                node = node.select(exploration);
+                position.play(node.move);
+            }
+            // Expansion
+            if (node.result < 0 && node.untriedCount > 0) {
+                int pick = random.nextInt(node.untriedCount);
+                int move = node.untried[pick];
+                node.untried[pick] = node.untried[--node.untriedCount];
+                byte mover = position.toMove;
+                position.play(move);
+                node = node.addChild(move, mover, position);
+            }
+            // Simulation
+            int winner = node.result >= 0 ? node.result : position.playout(random);
+            // Backpropagation
+            for (Node n = node; n != null; n = n.parent) {
+                n.visits++;
+                if (winner == n.player)
+                    n.wins += 1.0;
+                else if (winner == EMPTY)
+                    n.wins += 0.5;
+            }
+        }
+        return tree;
+    }
+    /**
+     * Gets the other mark of the compact board
+     * @param mark FIRST or SECOND
+     * @return the other mark
+     */
+    private static byte other(byte mark) {
+        return mark == FIRST ? SECOND : FIRST;
+    }
+    /**
+     * A node of the search tree, the position reached by one move
+     */
+    private static final class Node {
+        private final Node parent;
+        // Subscript of the move leading here, -1 for the root
+        private final int move;
+        // Mark of the player who made the move
+        private final byte player;
+        // Winner mark, EMPTY for a draw, -1 while the game goes on
+        private final int result;
+        // Moves not expanded yet
+        private final int[] untried;
+        private int untriedCount;
+        private Node[] children;
+        private int childCount;
+        private int visits;
+        private double wins;
+
+        /**
+         * Creates the node of a position
+         * @param parent	The parent node, null for the root
+         * @param move		The move leading here
+         * @param player	The mark of the player who made it
+         * @param position	The position after the move
+         */
+        Node(Node parent, int move, byte player, Position position) {
+            this.parent = parent;
+            this.move = move;
+            this.player = player;
+            if (move >= 0 && position.wins(move))
+                result = player;
+            else if (position.emptyCount == 0)
+                result = EMPTY;
+            else
+                result = -1;
+            untried = result < 0 ? Arrays.copyOf(position.empties, position.emptyCount) : new int[0];
+            untriedCount = untried.length;
+            children = new Node[untriedCount];
+        }
+        /**
+         * Adds the child reached by a move
+         * @param move		The move
+         * @param mover		The mark of the player making it
+         * @param position	The position after the move
+         * @return			The new child
+         */
+        Node addChild(int move, byte mover, Position position) {
+            Node child = new Node(this, move, mover, position);
+            children[childCount++] = child;
+            return child;
+        }
+        /**
+         * Selects the child with the highest UCT value
+         * @param exploration the weight of the exploration term
+         * @return the selected child
+         */
+        Node select(double exploration) {
+            double logVisits = Math.log(visits);
+            Node best = children[0];
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < childCount; i++) {
+                Node child = children[i];
+                double value = child.wins / child.visits + exploration * Math.sqrt(logVisits / child.visits);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+    }
+    /**
+     * A compact copy of the game board: one byte per cell, the list of
+     * empty cells and the number of marks of each player on every win line,
+     * cheap to copy and to play random moves on
+     */
+    private static final class Position {
+        private final LineTable lineTable;
+        private final byte[] cells;
+        // Empty cells in the first emptyCount entries, and each cell's index in that list
+        private final int[] empties;
+        private final int[] emptyIndex;
+        private int emptyCount;
+        // Marks of FIRST and SECOND on each win line
+        private final int[] firstCounts;
+        private final int[] secondCounts;
+        private byte toMove;
+
+        /**
+         * Creates an empty position
+         * @param lineTable the win lines of the board shape
+         */
+        Position(LineTable lineTable) {
+            this.lineTable = lineTable;
+            int cells = lineTable.getSize() * lineTable.getColumnCount();
+            this.cells = new byte[cells];
+            this.empties = new int[cells];
+            this.emptyIndex = new int[cells];
+            this.firstCounts = new int[lineTable.getLineCount()];
+            this.secondCounts = new int[lineTable.getLineCount()];
+        }
+        /**
+         * Creates the position of a game board
+         * @param board		The game board
+         * @param player	The mark of the player to move
+         */
+        Position(Board board, char player) {
+            this(board.getLineTable());
+            char[][] gameBoard = board.getGameBoard();
+            int columns = lineTable.getColumnCount();
+            char opponent = player == board.getComputerMark() ? board.getHumanMark() : board.getComputerMark();
+            for (int sub = 0; sub < cells.length; sub++) {
+                char mark = gameBoard[sub / columns][sub % columns];
+                if (mark == player)
+                    place(sub, FIRST);
+                else if (mark == opponent)
+                    place(sub, SECOND);
+                else {
+                    emptyIndex[sub] = emptyCount;
+                    empties[emptyCount++] = sub;
+                }
+            }
+            toMove = FIRST;
+        }
+        /**
+         * Copies another position of the same shape
+         * @param other the position to copy
+         */
+        void copyFrom(Position other) {
+            System.arraycopy(other.cells, 0, cells, 0, cells.length);
+            System.arraycopy(other.empties, 0, empties, 0, empties.length);
+            System.arraycopy(other.emptyIndex, 0, emptyIndex, 0, emptyIndex.length);
+            System.arraycopy(other.firstCounts, 0, firstCounts, 0, firstCounts.length);
+            System.arraycopy(other.secondCounts, 0, secondCounts, 0, secondCounts.length);
+            emptyCount = other.emptyCount;
+            toMove = other.toMove;
+        }
+        /**
+         * Puts a mark on a cell and counts it on the lines through the cell
+         * @param sub	The subscript of the cell
+         * @param mark	FIRST or SECOND
+         */
+        private void place(int sub, byte mark) {
+            cells[sub] = mark;
+            int[] counts = mark == FIRST ? firstCounts : secondCounts;
+            for (int line : lineTable.getLinesThrough(sub))
+                counts[line]++;
+        }
+        /**
+         * Plays a move for the player to move
+         * @param sub the subscript of an empty cell
+         */
+        void play(int sub) {
+            place(sub, toMove);
+            int index = emptyIndex[sub];
+            int last = empties[--emptyCount];
+            empties[index] = last;
+            emptyIndex[last] = index;
+            empties[emptyCount] = sub;
+            emptyIndex[sub] = emptyCount;
+            toMove = other(toMove);
+        }
+        /**
+         * Plays random moves until the game ends
+         * @param random the source of the moves
+         * @return the winner mark, EMPTY for a draw
+         */
+        int playout(SplittableRandom random) {
+            while (emptyCount > 0) {
+                int sub = empties[random.nextInt(emptyCount)];
+                byte mover = toMove;
+                play(sub);
+                if (wins(sub))
+                    return mover;
+            }
+            return EMPTY;
+        }
+        /**
+         * Checks if the mark on a cell completes a win line through it
+         * @param sub the subscript of the cell just played
+         * @return true if the move won
+         */
+        boolean wins(int sub) {
+            int[] counts = cells[sub] == FIRST ? firstCounts : secondCounts;
+            int winLength = lineTable.getWinLength();
+            for (int line : lineTable.getLinesThrough(sub)) {
+                if (counts[line] == winLength)
+                    return true;
+            }
+            return false;
+        }
+        /**
+         * Checks if a player owns every cell of any line of the position
+         * @param mark the player mark
+         * @return true if the player has won
+         */
+        boolean hasWon(byte mark) {
+            int[] counts = mark == FIRST ? firstCounts : secondCounts;
+            for (int count : counts) {
+                if (count == lineTable.getWinLength())
+                    return true;
+            }
+            return false;
+        }
+    }
+}
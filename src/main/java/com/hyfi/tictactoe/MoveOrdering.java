@@ -0,0 +1,28 @@
+package com.hyfi.tictactoe;
+
+/**
+ * The MoveOrdering enum lists the orders in which the alpha-beta search expands the empty cells of a position. Better orders find the cutoffs earlier and prune more of the tree.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public enum MoveOrdering {
+    /**
+     * Expands the cells in row-major order, the same order as Board.getAvailableCells.
+     */
+    ROW_MAJOR,
+    /**
+     * Expands the cells that lie on the most win lines first (the center, then the corners).
+     */
+    CENTER_CORNER_FIRST,
+    /**
+     * Expands the best move found at the same ply by the previous search first,
+     * followed by the center/corner order.
+     */
+    PREVIOUS_BEST_FIRST,
+    /**
+     * Expands the best move of the previous search first, then the killer moves that caused
+     * a cutoff at the same ply, then the other cells by how often they caused cutoffs anywhere.
+     * The killer and history tables are kept from one computer move to the next during a game.
+     */
+    KILLER_HISTORY
+}
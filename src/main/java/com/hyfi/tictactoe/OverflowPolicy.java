@@ -0,0 +1,17 @@
+package com.hyfi.tictactoe;
+
+/**
+ * The OverflowPolicy enum selects what GameDataWriter does with a record when its buffer is full.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public enum OverflowPolicy {
+    /**
+     * The writing thread waits until the flusher has made room, so every record reaches the file.
+     */
+    BLOCK,
+    /**
+     * The record is discarded and counted, so the writing thread never waits.
+     */
+    DROP
+}
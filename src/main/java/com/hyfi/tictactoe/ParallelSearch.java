@@ -0,0 +1,190 @@
+package com.hyfi.tictactoe;
+// Imports
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The ParallelSearch class splits the alpha-beta search at the root: every root move is played on its own copy of the game board and searched as a separate task on a ForkJoinPool, so idle workers steal the remaining root moves. Each root move gets its exact score, and the move is chosen by the same row-major rule as Minimax, so the choice does not depend on thread timing.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public class ParallelSearch {
+    private static final Logger logger = LoggerFactory.getLogger(ParallelSearch.class);
+
+    private Board board;
+    private final ForkJoinPool pool;
+    // Entries of the transposition table of each engine (2^16 entries use 1 MB)
+    private static final int ENGINE_TABLE_CAPACITY = 1 << 16;
+    // Plies to look ahead, 0 to search to the end of the game
+    private int depth;
+    // Engines of the running search not in use by a task, created as the
+    // tasks need them, so at most one per worker, and released after the search
+    private Queue<AlphaBeta> idleEngines;
+    // Nodes visited by all root tasks of the last search
+    private final AtomicLong nodeCount = new AtomicLong();
+
+    /**
+     * Initialize the parallel search with a game board, running on the
+     * common ForkJoinPool
+     * @param board the current game board
+     */
+    public ParallelSearch(Board board) {
+        this(board, ForkJoinPool.commonPool());
+    }
+    /**
+     * Initialize the parallel search with a game board and a pool
+     * @param board the current game board
+     * @param pool the pool the root moves are searched on
+     */
+    public ParallelSearch(Board board, ForkJoinPool pool) {
+        logger.debug("Constructor init...");
+        this.board = board;
+        this.pool = pool;
+    }
+    /**
+     * Set the game board
+     * @param board the game board
+     */
+    public void setGameBoard(Board board) {
+        this.board = board;
+    }
+    /**
+     * Sets the number of plies to look ahead. With a depth limit every root
+     * task starts from a cleared transposition table, so the horizon scores
+     * and with them the chosen move stay the same from run to run.
+     * @param depth the plies to look ahead, 0 to search to the end of the game
+     */
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+    /**
+     * Gets the number of plies to look ahead
+     * @return the plies to look ahead, 0 to search to the end of the game
+     */
+    public int getDepth() {
+        return depth;
+    }
+    /**
+     * Gets the number of positions visited by all root tasks of the last search
+     * @return the node count
+     */
+    public long getNodeCount() {
+        return nodeCount.get();
+    }
+    /**
+     * The search method searches every root move in parallel and assigns
+     * the best move to the game board as the computer move.
+     * @param player	The mark of the player to move.
+     * @return			AlphaBeta.WIN_SCORE for a win, AlphaBeta.DRAW_SCORE for a draw or -AlphaBeta.WIN_SCORE for a loss, an evaluation with a depth limit.
+     */
+    public int search(char player) {
+        long start = System.nanoTime();
+        nodeCount.set(0);
+        char opponent = player == board.getComputerMark() ? board.getHumanMark() : board.getComputerMark();
+        if (board.hasPlayerWon(player))
+            return AlphaBeta.WIN_SCORE;
+        else if (board.hasPlayerWon(opponent))
+            return -AlphaBeta.WIN_SCORE;
+        // Symmetric root moves share the score of the lowest move of their class
+        int[] representative = Symmetry.representativeMoves(board);
+        List<RootTask> tasks = new ArrayList<>();
+        for (int sub = 0; sub < representative.length; sub++) {
+            if (representative[sub] == sub)
+                tasks.add(new RootTask(sub, player, opponent));
+        }
+        if (tasks.isEmpty())
+            return AlphaBeta.DRAW_SCORE;
+        idleEngines = new ConcurrentLinkedQueue<>();
+        try {
+            pool.invoke(new RecursiveTask<Void>() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected Void compute() {
+                    invokeAll(tasks);
+                    return null;
+                }
+            });
+        } finally {
+            logger.debug("Parallel search used {} engines", idleEngines.size());
+            idleEngines = null;
+        }
+
+        int[] scores = new int[representative.length];
+        boolean[] searched = new boolean[representative.length];
+        for (RootTask task : tasks) {
+            scores[task.sub] = task.join();
+            searched[task.sub] = true;
+        }
+        for (int sub = 0; sub < representative.length; sub++) {
+            if (representative[sub] >= 0 && representative[sub] != sub) {
+                scores[sub] = scores[representative[sub]];
+                searched[sub] = true;
+            }
+        }
+        int best = AlphaBeta.selectMove(scores, searched);
+        int value = scores[best];
+        board.setComputerMove(board.getPoint(best));
+        logger.debug("Parallel search of {} root moves on {} workers | Nodes: {} | Value: {} | {} ms",
+            tasks.size(), pool.getParallelism(), nodeCount.get(), value, (System.nanoTime() - start) / 1_000_000L);
+        return value;
+    }
+    /**
+     * Searches one root move on a copy of the game board
+     */
+    private class RootTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final int sub;
+        private final char player;
+        private final char opponent;
+
+        /**
+         * Creates the task of a root move
+         * @param sub		The subscript of the root move
+         * @param player	The mark of the player making the root move
+         * @param opponent	The mark of the other player
+         */
+        RootTask(int sub, char player, char opponent) {
+            this.sub = sub;
+            this.player = player;
+            this.opponent = opponent;
+        }
+
+        @Override
+        protected Integer compute() {
+            Board copy = new Board(board);
+            Point point = copy.getPoint(sub);
+            copy.placeAMove(point, player);
+            if (copy.isWinningMove(point))
+                return AlphaBeta.WIN_SCORE;
+            else if (copy.getEmptyCellCount() == 0)
+                return AlphaBeta.DRAW_SCORE;
+            else if (depth == 1)
+                return copy.getEvaluation(player);
+            Queue<AlphaBeta> idle = idleEngines;
+            AlphaBeta engine = idle.poll();
+            if (engine == null)
+                engine = new AlphaBeta(null, new TranspositionTable(ENGINE_TABLE_CAPACITY));
+            else if (depth > 0)
+                engine.getTranspositionTable().clear();
+            try {
+                engine.setGameBoard(copy);
+                engine.resetStatistics();
+                int score = -engine.score(opponent, depth > 0 ? depth - 1 : Integer.MAX_VALUE);
+                nodeCount.addAndGet(engine.getNodeCount());
+                return score;
+            } finally {
+                engine.setGameBoard(null);
+                idle.offer(engine);
+            }
+        }
+    }
+}
@@ -2,21 +2,30 @@ package com.hyfi.tictactoe;
 // Imports
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * The Point class stores and represents the points (row and column) of a single cell to be played on the game board during game play.
+ * The Point class stores and represents the points (row and column) of a single cell to be played on the game board during game play. Every board shape has one table of shared points indexed by subscript, built once and handed out by the board, so listing or playing cells during a search does not create objects; shared points cannot be changed.
  * @version 2.2
  * @since 2019-04-12
  */
 public class Point {
     private static final Logger logger = LoggerFactory.getLogger(Point.class);
 
+    // Tables of shared points already built, by board shape
+    private static final Map<List<Integer>, Point[]> TABLES = new ConcurrentHashMap<>();
+
     // The row, column and subscript of each cell.
     private int row;
     private int col;
     private int sub;
     private Point computerMove;
     private int boardSize;
+    // True for the points of a shared table
+    private final boolean shared;
 
     /**
      * The class default constructor.
@@ -24,6 +33,7 @@ public class Point {
     public Point() {
         // Log a simple INFO message.
         logger.debug("Constructor init...");
+        this.shared = false;
     }
     /**
      * The subscript of the current Point
@@ -32,11 +42,12 @@ public class Point {
     public Point(int s) {
         // Log a simple INFO message.
         logger.debug(" Constructor init...");
+        this.shared = false;
         s -= 1;
         this.row = (s / this.boardSize) + 1;
         this.col = (s % this.boardSize) + 1;
         this.sub = s;
-        logger.debug("Subscript: "+s+" | Row: "+this.row+" | Column: "+this.col);
+        trace();
         computerMove = new Point(row,col);
     }
     /**
@@ -46,16 +57,67 @@ public class Point {
      * @param c the column of the point
      */
     public Point(int r, int c) {
+        this.shared = false;
         this.row = r-1;
         this.col = c-1;
         this.sub = (r - 1) * this.boardSize + (c - 1);
-        logger.debug("Subscript: "+this.sub+" | Row: "+this.row+" | Column: "+this.col);
+        trace();
+    }
+    /**
+     * Creates the shared point of a cell
+     * @param sub		The subscript of the cell
+     * @param columns	The number of columns of the board
+     * @param shared	True for a point of a shared table
+     */
+    private Point(int sub, int columns, boolean shared) {
+        this.shared = shared;
+        this.row = sub / columns;
+        this.col = sub % columns;
+        this.sub = sub;
+        this.boardSize = columns;
+    }
+    /**
+     * Gets the shared points of a board shape, building them on first use.
+     * The array is shared and must not be written to.
+     * @param rows		The number of rows
+     * @param columns	The number of columns
+     * @return			The points indexed by subscript
+     */
+    public static Point[] table(int rows, int columns) {
+        return TABLES.computeIfAbsent(Arrays.asList(rows, columns), shape -> {
+            Point[] points = new Point[rows * columns];
+            for (int sub = 0; sub < points.length; sub++)
+                points[sub] = new Point(sub, columns, true);
+            return points;
+        });
+    }
+    /**
+     * Checks if the point belongs to a shared table
+     * @return true for a shared point, which cannot be changed
+     */
+    public boolean isShared() {
+        return shared;
+    }
+    /**
+     * Refuses to change a shared point
+     */
+    private void checkMutable() {
+        if (shared)
+            throw new UnsupportedOperationException("Shared point " + this + " cannot be changed");
+    }
+    /**
+     * Logs the subscript, row and column of the point
+     */
+    private void trace() {
+        if (logger.isDebugEnabled())
+            logger.debug("Subscript: {} | Row: {} | Column: {}", this.sub, this.row, this.col);
     }
     /**
      * Sets the board size
      * @param size the size of the game board
      */
     public void setBoardSize(int size){
+        checkMutable();
         this.boardSize = size;
     }
     /**
@@ -63,6 +125,7 @@ public class Point {
      * @param gameBoard the game board
      */
     public void setBoardSize(char[][] gameBoard){
+        checkMutable();
         this.boardSize = gameBoard.length;
     }
     /**
@@ -70,9 +133,10 @@ public class Point {
      * @param sub the subscript of the Point
      */
     public void setPoints(int sub) {
+        checkMutable();
         this.row = (sub / this.boardSize) + 1;
         this.col = (sub % this.boardSize) + 1;
-        logger.debug("Subscript: "+sub+" | Row: "+this.row+" | Column: "+this.col);
+        trace();
     }
     /**
      * The toString method returns a string representation of the object
@@ -81,7 +145,7 @@ public class Point {
      */
     @Override
     public String toString() {
-        logger.debug("Subscript: "+this.sub+" | Row: "+this.row+" | Column: "+this.col);
+        trace();
         return "['" + this.row + "', '" + this.col + "']";
     }
     /**
@@ -89,7 +153,7 @@ public class Point {
      * @return	The value of the row.
      */
     public int getRow() {
-        logger.debug("Subscript: "+this.sub+" | Row: "+this.row+" | Column: "+this.col);
+        trace();
         return this.row;
     }
     /**
@@ -99,10 +163,11 @@ public class Point {
      * @return		The row value
      */
     public int getRow(int s) {
+        checkMutable();
         this.sub = s;
         this.row = (sub / this.boardSize) + 1;
         this.col = (sub % this.boardSize) + 1;
-        logger.debug("Subscript: "+this.sub+" | Row: "+this.row+" | Column: "+this.col);
+        trace();
         return this.row;
     }
     /**
@@ -110,7 +175,7 @@ public class Point {
      * @return	The value of the column.
      */
     public int getCol() {
-        logger.debug("Subscript: "+this.sub+" | Row: "+this.row+" | Column: "+this.col);
+        trace();
         return col;
     }
     /**
@@ -120,10 +185,11 @@ public class Point {
      * @return		The column reference to a cell
      */
     public int getCol(int s) {
+        checkMutable();
         this.sub = s;
         this.row = (s / this.boardSize) + 1;
         this.col = (s % this.boardSize) + 1;
-        logger.debug("Subscript: "+this.sub+" | Row: "+this.row+" | Column: "+this.col);
+        trace();
         return this.col;
     }
     /**
@@ -132,7 +198,7 @@ public class Point {
      */
     public int getSub() {
         // this.sub = (this.row-1) * this.boardSize + (this.col-1);
-        logger.debug("Subscript: "+this.sub+" | Row: "+this.row+" | Column: "+this.col);
+        trace();
         return this.sub;
     }
     /**
@@ -143,10 +209,11 @@ public class Point {
      * @return		The subscript value
      */
     public int getSub(int row, int col) {
+        checkMutable();
         this.row = row-1;
         this.col = col-1;
         this.sub = (row - 1) * this.boardSize + (col - 1);
-        logger.debug("Subscript: "+this.sub+" | Row: "+this.row+" | Column: "+this.col);
+        trace();
         return this.sub;
     }
     /**
@@ -156,7 +223,7 @@ public class Point {
      * @return	The object representing row and column
      */
     public Point getComputerMove() {
-        logger.debug("Subscript: "+this.sub+" | Row: "+this.row+" | Column: "+this.col);
+        trace();
         return computerMove;
     }
     /**
@@ -166,8 +233,9 @@ public class Point {
      * @param computerPoint	The object representing row and column
      */
     public void setComputerMove(Point computerPoint) {
+        checkMutable();
         this.computerMove = computerPoint;
-        logger.debug("Subscript: "+this.sub+" | Row: "+this.row+" | Column: "+this.col);
+        trace();
     }
         /**
      * The setComputerMove method accepts a point object
@@ -177,11 +245,12 @@ public class Point {
      * @param col	The column value
      */
     public void setComputerMove(int row, int col) {
+        checkMutable();
         this.row = row-1;
         this.col = col-1;
         this.sub = (row - 1) * this.boardSize + (col - 1);
         this.computerMove = new Point(row, col);
-        logger.debug("Subscript: "+this.sub+" | Row: "+this.row+" | Column: "+this.col);
+        trace();
     }
     // /**
     //  * Get the current line number of executing thread
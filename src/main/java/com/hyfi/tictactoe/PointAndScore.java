@@ -3,12 +3,10 @@ package com.hyfi.tictactoe;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 // Class dependencies
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
 // import java.util.logging.*;
 /**
- * The PointAndScore class stores and represents the points (row and column) of a single cell and score to be played on the game board during game play. This class writes the game statistical data to a text file for analysis.
+ * The PointAndScore class stores and represents the points (row and column) of a single cell and score to be played on the game board during game play. This class writes the game statistical data to a text file for analysis, through a GameDataWriter that batches the records on a background thread, or to a compact binary SearchTrace when one is set.
  * @version 2.2
  * @since 2019-04-12
  */
@@ -29,6 +27,10 @@ public class PointAndScore {
      * and game data will be written to this file.
      */
     public static final String DATA_FILE = "data/GameData.txt";
+    // Writes the records to DATA_FILE, the shared writer unless one is set
+    private GameDataWriter writer;
+    // Takes the records as binary instead of text lines when set
+    private SearchTrace trace;
 
 
     /**
@@ -45,6 +47,57 @@ public class PointAndScore {
 
         this.board = board;         
     }
+    /**
+     * Sets the writer of the game statistics
+     * @param writer the writer, the shared writer of DATA_FILE if null
+     */
+    public void setWriter(GameDataWriter writer) {
+        this.writer = writer;
+    }
+    /**
+     * Gets the writer of the game statistics, opening the shared writer
+     * of DATA_FILE on first use, see GameDataWriter.configure
+     * @return the writer
+     * @throws IOException if the data file cannot be opened
+     */
+    public GameDataWriter getWriter() throws IOException {
+        if (writer == null)
+            writer = GameDataWriter.getInstance();
+        return writer;
+    }
+    /**
+     * Sets the binary trace the records go to instead of DATA_FILE
+     * @param trace the trace, null to write text lines to DATA_FILE
+     */
+    public void setSearchTrace(SearchTrace trace) {
+        this.trace = trace;
+    }
+    /**
+     * Gets the binary trace the records go to
+     * @return the trace, null when text lines are written to DATA_FILE
+     */
+    public SearchTrace getSearchTrace() {
+        return trace;
+    }
+    /**
+     * Writes a record to the binary trace when one is set, otherwise as a
+     * text line to DATA_FILE
+     * @param kind		The kind of record, one of the SearchTrace kinds
+     * @param round		The current round of game play
+     * @param cells		The available cells left to be played
+     * @param depth		The depth of the search
+     * @param score		The value representing a win/loose/draw
+     * @param value		The max or min value compared to other outcomes
+     * @param iteration	The current iteration of game play
+     * @param point		The Point played
+     * @throws IOException throw IOException on file access
+     */
+    private void record(int kind, int round, int cells, int depth, int score, int value, int iteration, Point point) throws IOException {
+        if (trace != null)
+            trace.record(kind, round, cells, depth, score, value, iteration, point);
+        else
+            getWriter().write(SearchTrace.toText(kind, round, cells, depth, score, value, iteration, String.valueOf(point)));
+    }
     /**
      * The setMax method tracks the max values returned during iteration
      * of minimax algorithm.
@@ -134,30 +187,12 @@ public class PointAndScore {
      * @throws IOException throw IOException on file access
      */
     public void terminalWinner(int round, Point point, int score, int aCells, int value, int depth, int i) throws IOException  {
-        if (score == 1) {
-            FileWriter fwriter = new FileWriter(DATA_FILE, true);
-            PrintWriter outputFile = new PrintWriter(fwriter);
-            outputFile.println("AI Computer Win Returned: On Round: " + round + " | Cells Remaining: " +
-                    aCells + " | Depth: " + depth + " | Score: " + score + " | Max value: " +
-                    value + " | Iteration: " + i + " |  Point: " + point);
-            outputFile.close();
-        }
-        else if (score == -1) {
-            FileWriter fwriter = new FileWriter(DATA_FILE, true);
-            PrintWriter outputFile = new PrintWriter(fwriter);
-            outputFile.println("AI Human Win  Returned: On Round: " + round + " | Cells Remaining: " +
-                    aCells + " | Depth: " + depth + " | Score: " + score + " | Min value: " +
-                    value +  " | Iteration: " + i + " |  Point: " + point);
-            outputFile.close();
-        }
-        else if (score == 0){
-            FileWriter fwriter = new FileWriter(DATA_FILE, true);
-            PrintWriter outputFile = new PrintWriter(fwriter);
-            outputFile.println("Game is a DRAW Returned: On Round: " + round + " | Cells Remaining: " +
-                    aCells + " | Depth: " + depth + " | Score: " + score + " | Max/Min value: " +
-                    value  + " | Iteration: " + i + " |  Point: " + point);
-            outputFile.close();
-        }
+        if (score == 1)
+            record(SearchTrace.COMPUTER_WIN, round, aCells, depth, score, value, i, point);
+        else if (score == -1)
+            record(SearchTrace.HUMAN_WIN, round, aCells, depth, score, value, i, point);
+        else if (score == 0)
+            record(SearchTrace.DRAW, round, aCells, depth, score, value, i, point);
 
     }
     /**
@@ -179,12 +214,7 @@ public class PointAndScore {
         this.max = max;
         this.iteration = i;
 
-        FileWriter fwriter = new FileWriter(DATA_FILE, true);
-        PrintWriter outputFile = new PrintWriter(fwriter);
-        outputFile.println("Best Moves Returned: On Round: " + round + " | Cells Remaining: " + aCells +
-                " | Depth: " + depth + " | Score: " + score + " | Max value: " + max + " | Iteration: " + iteration +
-                " |  Point: " + point);
-        outputFile.close();
+        record(SearchTrace.BEST_MOVE, round, aCells, depth, score, max, iteration, point);
     }
     /**
      * The printComputerMove method prints statistical data for simulated move
@@ -198,11 +228,7 @@ public class PointAndScore {
      * @throws IOException IOException throw IOException on file access
      */
     public void captureComputerMove(int round, int score, Point point, int depth, int iteration, int max ) throws IOException {
-        FileWriter fwriter = new FileWriter(DATA_FILE, true);
-        PrintWriter outputFile = new PrintWriter(fwriter);
-        outputFile.println("Computer Turn: On Round: " + round + " | Depth: " +
-                depth + " | Score: " + score + " | Max value: " + max + " | Iteration: " + iteration + " | Point: " + point);
-        outputFile.close();
+        record(SearchTrace.COMPUTER_TURN, round, 0, depth, score, max, iteration, point);
     }
     /**
      * The printHumanMove method prints statistical data for simulated move
@@ -216,11 +242,7 @@ public class PointAndScore {
      * @throws IOException IOException throw IOException on file access
      */
     public void captureHumanMove(int round, int score, Point point, int depth, int iteration, int min) throws IOException {
-        FileWriter fwriter = new FileWriter(DATA_FILE, true);
-        PrintWriter outputFile = new PrintWriter(fwriter);
-        outputFile.println("***Human Turn: On Round: " + round + " | Depth: " +
-                depth + " | Score: " + score + " | Max value: " + min + " | Iteration: " + iteration + " | Point: " + point);
-        outputFile.close();
+        record(SearchTrace.HUMAN_TURN, round, 0, depth, score, min, iteration, point);
     }
     /**
      * The printResults method tracks and prints statistical value
@@ -234,12 +256,8 @@ public class PointAndScore {
      */
     public void printResults() throws IOException {
 
-        FileWriter fwriter = new FileWriter(DATA_FILE, true);
-        PrintWriter outputFile = new PrintWriter(fwriter);
-        outputFile.println("********************  Computer Move: On Round: " + 	board.getRound() +  "  | Depth: " + board.getDepth() +
-                "  |  Score: " + board.getComputerScore() + " | Max value: " + getMax() + "  |  Point: " +
-                board.getComputerMove() + "  **************");
-        outputFile.close();
+        record(SearchTrace.RESULT, board.getRound(), 0, board.getDepth(), board.getComputerScore(), getMax(), 0,
+                board.getComputerMove());
     }
     // /**
     //  * Get the current line number of executing thread
@@ -0,0 +1,404 @@
+package com.hyfi.tictactoe;
+// Imports
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.Arrays;
+
+/**
+ * The ProofNumberSearch class answers whether a position is a forced win with depth-first proof-number search (df-pn) instead of scoring every move. Each position carries a proof number, the number of leaves that still have to be won to prove the win, and a disproof number, the number that have to fail to refute it; the search always expands the most proving position under thresholds passed down the tree, so it spends its nodes on the moves that decide the question and stops as soon as the question is settled. The numbers are kept in a transposition table of fixed capacity keyed by the canonical hash, so symmetric positions and move-order transpositions share one entry, and the table never grows past its memory cap. A position is solved by proving a win for the player to move, then a win for the opponent; when both fail it is a draw.
+ * Run it with the rows, columns and win length as arguments, followed by the moves of a position as row,column pairs from 1, X moving first.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public class ProofNumberSearch {
+    private static final Logger logger = LoggerFactory.getLogger(ProofNumberSearch.class);
+
+    // Default number of table entries (2^20 entries use 20 MB)
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+    // Proof or disproof number of a settled position
+    public static final int INFINITY = 100_000_000;
+    private static final SearchAbortedException ABORTED = new SearchAbortedException();
+    // Nodes between two checks of the deadline
+    private static final long CLOCK_INTERVAL = 1024;
+
+    private Board board;
+    // Table keys, phi and delta numbers and nodes spent, two slots per bucket
+    private final long[] keys;
+    private final int[] phis;
+    private final int[] deltas;
+    private final int[] work;
+    // Mask selecting the bucket from a key
+    private final int bucketMask;
+    // The player trying to win in the current proof
+    private char attacker;
+    // Search limits: a System.nanoTime deadline and a node budget
+    private long deadline = Long.MAX_VALUE;
+    private long nodeLimit = Long.MAX_VALUE;
+    // Positions expanded since the last solve
+    private long nodeCount;
+    // Phi and delta of the position the last expansion returned from
+    private int lastPhi;
+    private int lastDelta;
+    // The proof move found at the root, -1 for none
+    private int proofMove = -1;
+    // The line table the buffers below were built for
+    private LineTable lineTable;
+    private int columns;
+    // Moves and their phi and delta numbers per ply
+    private int[][] moveBuffer;
+    private int[][] phiBuffer;
+    private int[][] deltaBuffer;
+    // The point of each cell subscript
+    private Point[] points;
+
+    /**
+     * Initialize the search with a game board and the default table capacity
+     * @param board the current game board
+     */
+    public ProofNumberSearch(Board board) {
+        this(board, DEFAULT_CAPACITY);
+    }
+    /**
+     * Initialize the search with a game board and a table holding up to the
+     * given number of entries. The capacity is rounded down to a power of
+     * two, with a minimum of 2.
+     * @param board the current game board
+     * @param capacity the maximum number of table entries
+     */
+    public ProofNumberSearch(Board board, int capacity) {
+        logger.debug("Constructor init...");
+        this.board = board;
+        int size = Integer.highestOneBit(Math.max(2, capacity));
+        keys = new long[size];
+        phis = new int[size];
+        deltas = new int[size];
+        work = new int[size];
+        bucketMask = (size >> 1) - 1;
+        logger.debug("Proof-number table with {} entries | {} bytes", size, getMemoryFootprint());
+    }
+    /**
+     * Set the game board
+     * @param board the game board
+     */
+    public void setGameBoard(Board board) {
+        this.board = board;
+    }
+    /**
+     * Sets the limits of the next solve. A solve that reaches one returns
+     * UNKNOWN.
+     * @param deadline	The System.nanoTime value to stop at, Long.MAX_VALUE for none
+     * @param nodeLimit	The node count to stop at, Long.MAX_VALUE for none
+     */
+    public void setLimits(long deadline, long nodeLimit) {
+        this.deadline = deadline;
+        this.nodeLimit = nodeLimit;
+    }
+    /**
+     * Removes the limits
+     */
+    public void clearLimits() {
+        setLimits(Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+    /**
+     * Gets the number of positions expanded by the last solve
+     * @return the node count
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+    /**
+     * Gets the number of bytes used by the table
+     * @return the memory footprint of the table
+     */
+    public long getMemoryFootprint() {
+        return (long) keys.length * (Long.BYTES + 3 * Integer.BYTES);
+    }
+    /**
+     * Gets the proof move of the last solve: the winning move of a WIN, the
+     * move that holds a DRAW
+     * @return the proof move, null after a LOSS or UNKNOWN
+     */
+    public Point getProofMove() {
+        return proofMove < 0 ? null : points[proofMove];
+    }
+    /**
+     * The solve method proves the game value of the board for the player to
+     * move. The board is left as it was.
+     * @param player	The mark of the player to move.
+     * @return			WIN, DRAW or LOSS, UNKNOWN if a limit was reached first.
+     */
+    public ProofResult solve(char player) {
+        long start = System.nanoTime();
+        nodeCount = 0;
+        prepare();
+        char opponent = opponentOf(player);
+        ProofResult result;
+        if (board.hasPlayerWon(player))
+            result = ProofResult.WIN;
+        else if (board.hasPlayerWon(opponent))
+            result = ProofResult.LOSS;
+        else if (board.getEmptyCellCount() == 0)
+            result = ProofResult.DRAW;
+        else if (!prove(player, player))
+            result = ProofResult.UNKNOWN;
+        else if (lastPhi == 0)
+            result = ProofResult.WIN;
+        else if (!prove(player, opponent))
+            result = ProofResult.UNKNOWN;
+        else
+            result = lastPhi == 0 ? ProofResult.DRAW : ProofResult.LOSS;
+        if (result != ProofResult.WIN && result != ProofResult.DRAW)
+            proofMove = -1;
+        logger.debug("Proof-number search: {} | Move: {} | Nodes: {} | {} ms", result, getProofMove(), nodeCount,
+            (System.nanoTime() - start) / 1_000_000L);
+        return result;
+    }
+    /**
+     * Settles whether the attacker wins the board with a player to move. The
+     * root phi is 0 after the call when the player to move reaches the
+     * attacker's goal, a win for the attacker or a non-win for the defender.
+     * @param player	The mark of the player to move.
+     * @param attacker	The mark of the player trying to win.
+     * @return			false if a limit was reached first
+     */
+    private boolean prove(char player, char attacker) {
+        this.attacker = attacker;
+        Arrays.fill(keys, 0L);
+        Arrays.fill(work, 0);
+        proofMove = -1;
+        int undoDepth = board.getUndoDepth();
+        try {
+            expand(player, opponentOf(player), 0, INFINITY, INFINITY);
+            return true;
+        } catch (SearchAbortedException e) {
+            return false;
+        } finally {
+            while (board.getUndoDepth() > undoDepth)
+                board.unmakeMove();
+        }
+    }
+
+    /**
+     * Expands a position until its phi or delta reaches a threshold. Phi is
+     * the proof number for the player to move and delta the disproof number:
+     * phi is the smallest delta of the replies, delta the sum of their phis.
+     * @param mover		The mark of the player to move.
+     * @param other		The mark of the other player.
+     * @param ply		The number of moves made from the root.
+     * @param thPhi		The phi threshold.
+     * @param thDelta	The delta threshold.
+     */
+    private void expand(char mover, char other, int ply, int thPhi, int thDelta) {
+        if (++nodeCount >= nodeLimit || (nodeCount % CLOCK_INTERVAL == 0 && System.nanoTime() >= deadline))
+            throw ABORTED;
+        long before = nodeCount;
+        int[] moves = moveBuffer[ply];
+        int[] childPhi = phiBuffer[ply];
+        int[] childDelta = deltaBuffer[ply];
+        // A cell on no line either player can still complete is a pass,
+        // and a pass is never better than a mark on a live cell
+        int count = 0;
+        for (int i = 0; i < board.getEmptyCellCount(); i++) {
+            int sub = board.getEmptyCell(i);
+            if (isLive(sub))
+                moves[count++] = sub;
+        }
+        if (count == 0)
+            moves[count++] = board.getEmptyCell(0);
+        for (int i = 0; i < count; i++)
+            evaluate(moves[i], mover, other, childPhi, childDelta, i);
+        int phi;
+        int delta;
+        while (true) {
+            phi = INFINITY;
+            delta = 0;
+            int best = -1;
+            int secondDelta = INFINITY;
+            for (int i = 0; i < count; i++) {
+                if (childDelta[i] < phi) {
+                    secondDelta = phi;
+                    phi = childDelta[i];
+                    best = i;
+                } else if (childDelta[i] < secondDelta)
+                    secondDelta = childDelta[i];
+                delta = childPhi[i] >= INFINITY || delta >= INFINITY ? INFINITY
+                    : Math.min(INFINITY - 1, delta + childPhi[i]);
+            }
+            if (ply == 0 && phi == 0)
+                proofMove = moves[best];
+            if (phi >= thPhi || delta >= thDelta)
+                break;
+            int childThPhi = (int) Math.min(INFINITY, (long) thDelta - delta + childPhi[best]);
+            int childThDelta = Math.min(thPhi, secondDelta >= INFINITY ? INFINITY : secondDelta + 1);
+            board.makeMove(points[moves[best]], mover);
+            expand(other, mover, ply + 1, childThPhi, childThDelta);
+            board.unmakeMove();
+            childPhi[best] = lastPhi;
+            childDelta[best] = lastDelta;
+        }
+        store(board.getCanonicalHash(mover), phi, delta, nodeCount - before);
+        lastPhi = phi;
+        lastDelta = delta;
+    }
+    /**
+     * Gets the phi and delta of the position after a move: settled when the
+     * move ends the game, from the table otherwise, 1 and the number of
+     * empty cells if unseen
+     * @param sub			The subscript of the move.
+     * @param mover			The mark of the player making the move.
+     * @param other			The mark of the player to move after it.
+     * @param childPhi		The phi buffer of the moves.
+     * @param childDelta	The delta buffer of the moves.
+     * @param i				The index of the move in the buffers.
+     */
+    private void evaluate(int sub, char mover, char other, int[] childPhi, int[] childDelta, int i) {
+        board.makeMove(points[sub], mover);
+        if (board.isWinningMove(sub / columns, sub % columns)) {
+            // The player to move has lost
+            childPhi[i] = INFINITY;
+            childDelta[i] = 0;
+        } else if (board.getEmptyCellCount() == 0 || !canStillWin(other)) {
+            // A draw, or a board the attacker can no longer win, fails the
+            // attacker whoever is to move
+            boolean attackerToMove = other == attacker;
+            childPhi[i] = attackerToMove ? INFINITY : 0;
+            childDelta[i] = attackerToMove ? 0 : INFINITY;
+        } else {
+            int slot = find(board.getCanonicalHash(other));
+            // An unseen position starts with the number of moves left as
+            // its delta, so narrow positions are tried first
+            childPhi[i] = slot < 0 ? 1 : phis[slot];
+            childDelta[i] = slot < 0 ? board.getEmptyCellCount() : deltas[slot];
+        }
+        board.unmakeMove();
+    }
+    /**
+     * Checks if a cell is on a line that is still free of one player's marks
+     * @param sub the cell subscript
+     * @return true if a mark on the cell can still matter
+     */
+    private boolean isLive(int sub) {
+        for (int line : lineTable.getLinesThrough(sub)) {
+            if (board.getLineCount('X', line) == 0 || board.getLineCount('O', line) == 0)
+                return true;
+        }
+        return false;
+    }
+    /**
+     * Checks if the attacker still has a line free of defender marks that
+     * the attacker's remaining moves can complete
+     * @param toMove	The mark of the player to move.
+     * @return			false if the attacker can no longer win
+     */
+    private boolean canStillWin(char toMove) {
+        char defender = opponentOf(attacker);
+        int empty = board.getEmptyCellCount();
+        int movesLeft = toMove == attacker ? (empty + 1) / 2 : empty / 2;
+        int winLength = lineTable.getWinLength();
+        for (int line = 0; line < lineTable.getLineCount(); line++) {
+            if (board.getLineCount(defender, line) == 0 && winLength - board.getLineCount(attacker, line) <= movesLeft)
+                return true;
+        }
+        return false;
+    }
+    /**
+     * Looks up a position
+     * @param key the canonical hash of the position
+     * @return the slot, -1 if the position is not stored
+     */
+    private int find(long key) {
+        int slot = (int) (key & bucketMask) << 1;
+        if (keys[slot] == key && work[slot] > 0)
+            return slot;
+        if (keys[slot + 1] == key && work[slot + 1] > 0)
+            return slot + 1;
+        return -1;
+    }
+    /**
+     * Stores a position, replacing the entry of its bucket that cost the
+     * fewest nodes when the position is new
+     * @param key	The canonical hash of the position
+     * @param phi	The phi number
+     * @param delta	The delta number
+     * @param nodes	The nodes spent on the position
+     */
+    private void store(long key, int phi, int delta, long nodes) {
+        int slot = find(key);
+        int cost = (int) Math.min(Integer.MAX_VALUE, nodes);
+        if (slot >= 0)
+            cost = (int) Math.min(Integer.MAX_VALUE, (long) work[slot] + cost);
+        else {
+            slot = (int) (key & bucketMask) << 1;
+            if (work[slot + 1] < work[slot])
+                slot++;
+        }
+        keys[slot] = key;
+        phis[slot] = phi;
+        deltas[slot] = delta;
+        work[slot] = Math.max(1, cost);
+    }
+    /**
+     * Builds the buffers when the board shape changes.
+     */
+    private void prepare() {
+        LineTable lines = board.getLineTable();
+        if (lines == lineTable)
+            return;
+        lineTable = lines;
+        columns = board.getColumnCount();
+        int n = board.getRowCount() * columns;
+        moveBuffer = new int[n + 1][n];
+        phiBuffer = new int[n + 1][n];
+        deltaBuffer = new int[n + 1][n];
+        points = new Point[n];
+        for (int sub = 0; sub < n; sub++)
+            points[sub] = board.getPoint(sub);
+    }
+    /**
+     * Gets the mark of the other player
+     * @param player	The mark of one player
+     * @return			The mark of the other player
+     */
+    private static char opponentOf(char player) {
+        return player == 'X' ? 'O' : 'X';
+    }
+    /**
+     * Solves a position and prints the result
+     * @param args the rows, columns and win length, then the moves as row,column pairs from 1
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Usage: ProofNumberSearch rows columns winLength [row,column ...]");
+            return;
+        }
+        int rows = Integer.parseInt(args[0]);
+        int cols = Integer.parseInt(args[1]);
+        char[][] gameBoard = new char[rows][cols];
+        for (char[] row : gameBoard)
+            Arrays.fill(row, ' ');
+        Board board = new Board(gameBoard, Integer.parseInt(args[2]));
+        char toMove = 'X';
+        for (int i = 3; i < args.length; i++) {
+            String[] cell = args[i].split(",");
+            board.makeMove(new Point(Integer.parseInt(cell[0]), Integer.parseInt(cell[1])), toMove);
+            toMove = opponentOf(toMove);
+        }
+        ProofNumberSearch search = new ProofNumberSearch(board);
+        long start = System.nanoTime();
+        ProofResult result = search.solve(toMove);
+        Point move = search.getProofMove();
+        System.out.printf("%s to move: %s%s in %d ms, %d nodes%n", toMove, result,
+            move == null ? "" : " with row " + (move.getRow() + 1) + " column " + (move.getCol() + 1),
+            (System.nanoTime() - start) / 1_000_000L, search.getNodeCount());
+    }
+    /**
+     * Unwinds the search when a limit is reached
+     */
+    private static class SearchAbortedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        SearchAbortedException() {
+            super("Search aborted", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.hyfi.tictactoe;
+
+/**
+ * The ProofResult enum holds the game value ProofNumberSearch proved for the player to move.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public enum ProofResult {
+    /**
+     * The player to move wins whatever the opponent plays.
+     */
+    WIN,
+    /**
+     * Neither player can force a win.
+     */
+    DRAW,
+    /**
+     * The opponent wins whatever the player to move plays.
+     */
+    LOSS,
+    /**
+     * The search stopped at its node or time limit before a proof was found.
+     */
+    UNKNOWN
+}
@@ -0,0 +1,41 @@
+package com.hyfi.tictactoe;
+
+/**
+ * The SearchMode enum selects the algorithm the computer uses to pick its move during game play.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public enum SearchMode {
+    /**
+     * The plain Minimax search over every reply.
+     */
+    MINIMAX,
+    /**
+     * The Minimax search with alpha-beta pruning, returns the same move as MINIMAX.
+     */
+    ALPHA_BETA,
+    /**
+     * The alpha-beta search deepened one ply at a time within a time and node budget per move.
+     */
+    ITERATIVE_DEEPENING,
+    /**
+     * The iterative deepening search with principal variation search (NegaScout) and aspiration windows, returns the same scores as ITERATIVE_DEEPENING with fewer nodes.
+     */
+    PVS,
+    /**
+     * The alpha-beta search split at the root, every root move is searched on its own board copy in parallel.
+     */
+    PARALLEL,
+    /**
+     * The iterative deepening search run by several threads on the same position, sharing a lock-free transposition table.
+     */
+    LAZY_SMP,
+    /**
+     * The Monte Carlo tree search within a playout and time budget per move, for boards too large to search.
+     */
+    MCTS,
+    /**
+     * The answer from a table of solved positions, falls back to ALPHA_BETA when the table does not cover the position.
+     */
+    TABLE
+}
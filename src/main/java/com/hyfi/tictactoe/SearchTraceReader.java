@@ -0,0 +1,294 @@
+package com.hyfi.tictactoe;
+// Imports
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The SearchTraceReader class reads the binary trace written by SearchTrace for offline analysis. The file is mapped into memory and the fixed-width records are read in place, so no line is parsed and no object is created per record. Records can be filtered by kind, round, score and cell; the matching records are counted by kind, by score and by cell, and can be exported as the text lines PointAndScore writes to DATA_FILE.
+ * Run it with the trace file, then any of --kind NAME, --round N, --score N, --cell SUB and --text FILE ("-" for the console).
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public final class SearchTraceReader {
+    private static final Logger logger = LoggerFactory.getLogger(SearchTraceReader.class);
+
+    // The mapped file, header included
+    private final MappedByteBuffer buffer;
+    private final int rows;
+    private final int columns;
+    private final int recordCount;
+    // Filters, -1 or Integer.MIN_VALUE for any
+    private int kind = -1;
+    private int round = -1;
+    private int score = Integer.MIN_VALUE;
+    private int cell = Integer.MIN_VALUE;
+
+    /**
+     * Creates a reader on a mapped trace
+     * @param buffer the mapped file, header included
+     */
+    private SearchTraceReader(MappedByteBuffer buffer) {
+        logger.debug("Constructor init...");
+        this.buffer = buffer;
+        this.rows = buffer.getShort(8);
+        this.columns = buffer.getShort(10);
+        this.recordCount = (buffer.capacity() - SearchTrace.HEADER_BYTES) / SearchTrace.RECORD_BYTES;
+    }
+    /**
+     * Maps a trace file
+     * @param file the file written by SearchTrace
+     * @return the reader
+     * @throws IOException if the file cannot be mapped or is not a trace
+     */
+    public static SearchTraceReader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < SearchTrace.HEADER_BYTES || size > Integer.MAX_VALUE
+                    || (size - SearchTrace.HEADER_BYTES) % SearchTrace.RECORD_BYTES != 0)
+                throw new IOException("Trace " + file + " has " + size + " bytes, not a header and whole records");
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if (buffer.getInt(0) != SearchTrace.MAGIC || buffer.getShort(4) != SearchTrace.VERSION
+                    || buffer.getShort(6) != SearchTrace.RECORD_BYTES)
+                throw new IOException("Trace " + file + " has an unknown header");
+            // The mapping stays valid after the channel is closed
+            return new SearchTraceReader(buffer);
+        }
+    }
+    /**
+     * Keeps only the records of one kind
+     * @param kind the kind, one of the SearchTrace kinds, -1 for any
+     */
+    public void setKind(int kind) {
+        this.kind = kind;
+    }
+    /**
+     * Keeps only the records of one round
+     * @param round the round, -1 for any
+     */
+    public void setRound(int round) {
+        this.round = round;
+    }
+    /**
+     * Keeps only the records with one score
+     * @param score the score, Integer.MIN_VALUE for any
+     */
+    public void setScore(int score) {
+        this.score = score;
+    }
+    /**
+     * Keeps only the records of one cell
+     * @param cell the cell subscript, Integer.MIN_VALUE for any
+     */
+    public void setCell(int cell) {
+        this.cell = cell;
+    }
+    /**
+     * Gets the number of records in the trace
+     * @return the record count
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+    /**
+     * Gets the kind of a record
+     * @param record the record number
+     * @return the kind
+     */
+    public int kindOf(int record) {
+        return buffer.get(offsetOf(record)) & 0xFF;
+    }
+    /**
+     * Gets the score of a record
+     * @param record the record number
+     * @return the score
+     */
+    public int scoreOf(int record) {
+        return buffer.get(offsetOf(record) + 1);
+    }
+    /**
+     * Gets the max or min value of a record
+     * @param record the record number
+     * @return the value
+     */
+    public int valueOf(int record) {
+        return buffer.get(offsetOf(record) + 2);
+    }
+    /**
+     * Gets the available cells of a record
+     * @param record the record number
+     * @return the available cells
+     */
+    public int cellsOf(int record) {
+        return buffer.get(offsetOf(record) + 3) & 0xFF;
+    }
+    /**
+     * Gets the depth of a record
+     * @param record the record number
+     * @return the depth
+     */
+    public int depthOf(int record) {
+        return buffer.get(offsetOf(record) + 4) & 0xFF;
+    }
+    /**
+     * Gets the iteration of a record
+     * @param record the record number
+     * @return the iteration
+     */
+    public int iterationOf(int record) {
+        return buffer.get(offsetOf(record) + 5) & 0xFF;
+    }
+    /**
+     * Gets the round of a record
+     * @param record the record number
+     * @return the round
+     */
+    public int roundOf(int record) {
+        return buffer.getInt(offsetOf(record) + 6);
+    }
+    /**
+     * Gets the cell of a record
+     * @param record the record number
+     * @return the cell subscript, -1 for none
+     */
+    public int cellOf(int record) {
+        return buffer.getShort(offsetOf(record) + 10);
+    }
+    /**
+     * Gets the position of a record in the file
+     * @param record the record number
+     * @return the byte offset
+     */
+    private static int offsetOf(int record) {
+        return SearchTrace.HEADER_BYTES + record * SearchTrace.RECORD_BYTES;
+    }
+    /**
+     * Checks a record against the filters
+     * @param record the record number
+     * @return true if the record is kept
+     */
+    public boolean matches(int record) {
+        return (kind < 0 || kindOf(record) == kind)
+            && (round < 0 || roundOf(record) == round)
+            && (score == Integer.MIN_VALUE || scoreOf(record) == score)
+            && (cell == Integer.MIN_VALUE || cellOf(record) == cell);
+    }
+    /**
+     * Formats a record as the text line PointAndScore writes to DATA_FILE
+     * @param record the record number
+     * @return the text line
+     */
+    public String toText(int record) {
+        return SearchTrace.toText(kindOf(record), roundOf(record), cellsOf(record), depthOf(record), scoreOf(record),
+            valueOf(record), iterationOf(record), SearchTrace.pointText(cellOf(record), columns));
+    }
+    /**
+     * Counts the records kept by the filters by kind, score and cell, and
+     * prints the counts
+     * @param text the writer the kept records are exported to, null for none
+     * @throws IOException if the text cannot be written
+     */
+    public void summarize(Writer text) throws IOException {
+        long[] kinds = new long[SearchTrace.KIND_NAMES.length];
+        long[] scores = new long[256];
+        long[] cells = new long[rows * columns + 1];
+        long kept = 0;
+        int firstRound = Integer.MAX_VALUE;
+        int lastRound = Integer.MIN_VALUE;
+        for (int record = 0; record < recordCount; record++) {
+            if (!matches(record))
+                continue;
+            kept++;
+            int k = kindOf(record);
+            if (k < kinds.length)
+                kinds[k]++;
+            scores[scoreOf(record) + 128]++;
+            cells[cellOf(record) + 1]++;
+            firstRound = Math.min(firstRound, roundOf(record));
+            lastRound = Math.max(lastRound, roundOf(record));
+            if (text != null) {
+                text.write(toText(record));
+                text.write(System.lineSeparator());
+            }
+        }
+        if (text != null)
+            text.flush();
+        System.out.printf("%d of %d records on a %dx%d board%n", kept, recordCount, rows, columns);
+        if (kept == 0)
+            return;
+        System.out.printf("Rounds %d to %d%n", firstRound, lastRound);
+        for (int k = 0; k < kinds.length; k++) {
+            if (kinds[k] > 0)
+                System.out.printf("  %-14s %d%n", SearchTrace.KIND_NAMES[k], kinds[k]);
+        }
+        for (int s = 0; s < scores.length; s++) {
+            if (scores[s] > 0)
+                System.out.printf("  Score %-8d %d%n", s - 128, scores[s]);
+        }
+        for (int sub = -1; sub < rows * columns; sub++) {
+            if (cells[sub + 1] > 0)
+                System.out.printf("  Cell %-9s %d%n", SearchTrace.pointText(sub, columns), cells[sub + 1]);
+        }
+    }
+    /**
+     * Gets the kind of a name
+     * @param name the name of a kind, in any case
+     * @return the kind
+     * @throws IllegalArgumentException if no kind has the name
+     */
+    static int kindNamed(String name) {
+        int kind = Arrays.asList(SearchTrace.KIND_NAMES).indexOf(name.toUpperCase());
+        if (kind < 0)
+            throw new IllegalArgumentException("Unknown kind " + name + ", expected one of " + Arrays.toString(SearchTrace.KIND_NAMES));
+        return kind;
+    }
+    /**
+     * Reads a trace, prints the counts of the records kept by the filters
+     * and optionally exports them as text
+     * @param args the trace file, then --kind NAME, --round N, --score N, --cell SUB or --text FILE
+     * @throws IOException if the trace cannot be read or the text written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length % 2 == 0) {
+            System.out.println("Usage: SearchTraceReader file [--kind NAME] [--round N] [--score N] [--cell SUB] [--text FILE|-]");
+            return;
+        }
+        SearchTraceReader reader = open(Paths.get(args[0]));
+        String textFile = null;
+        for (int i = 1; i < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--kind": reader.setKind(kindNamed(value)); break;
+                case "--round": reader.setRound(Integer.parseInt(value)); break;
+                case "--score": reader.setScore(Integer.parseInt(value)); break;
+                case "--cell": reader.setCell(Integer.parseInt(value)); break;
+                case "--text": textFile = value; break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (textFile == null) {
+            reader.summarize(null);
+        } else if (textFile.equals("-")) {
+            Writer text = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            reader.summarize(text);
+            text.flush();
+        } else {
+            try (Writer text = Files.newBufferedWriter(Paths.get(textFile), StandardCharsets.UTF_8)) {
+                reader.summarize(text);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.hyfi.tictactoe;
+// Imports
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The SharedTranspositionTable class is a transposition table that several search threads probe and update at the same time without locks. Each slot is a pair of longs, the packed entry and a check word holding the Zobrist key XOR the entry. Writers claim a slot with a compare-and-set on its check word, and readers only accept a slot whose check word XOR entry gives back their key, so a pair torn by two racing writers reads as a miss instead of a wrong result.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public class SharedTranspositionTable extends TranspositionTable {
+
+    // Atomic access to the slots of the check word and entry arrays
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(long[].class);
+
+    // Generation of the current search, written by the owning thread only
+    private volatile int sharedGeneration;
+    // Statistics updated by all search threads
+    private final LongAdder sharedProbes = new LongAdder();
+    private final LongAdder sharedHits = new LongAdder();
+    private final LongAdder sharedStores = new LongAdder();
+    private final LongAdder sharedEvictions = new LongAdder();
+    private final LongAdder lostRaces = new LongAdder();
+
+    /**
+     * Creates a shared table with the default number of entries
+     */
+    public SharedTranspositionTable() {
+        super();
+    }
+    /**
+     * Creates a shared table holding up to the given number of entries
+     * @param capacity the maximum number of entries
+     */
+    public SharedTranspositionTable(int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    public long probe(long key) {
+        sharedProbes.increment();
+        int slot = bucketOf(key);
+        for (int i = slot; i < slot + 2; i++) {
+            long entry = (long) SLOT.getOpaque(entries, i);
+            long check = (long) SLOT.getAcquire(keys, i);
+            if (entry != MISS && (check ^ entry) == key) {
+                sharedHits.increment();
+                return entry;
+            }
+        }
+        return MISS;
+    }
+
+    @Override
+    public void store(long key, int depth, int score, int bound, int move) {
+        sharedStores.increment();
+        int slot = bucketOf(key);
+        long check = (long) SLOT.getAcquire(keys, slot);
+        long current = (long) SLOT.getOpaque(entries, slot);
+        if (!replaceable(key, check, current, depth)) {
+            slot++;
+            check = (long) SLOT.getAcquire(keys, slot);
+            current = (long) SLOT.getOpaque(entries, slot);
+        }
+        long entry = pack(depth, score, bound, move, sharedGeneration);
+        // Another thread changed the slot since it was read, keep its result
+        if (!SLOT.compareAndSet(keys, slot, check, key ^ entry)) {
+            lostRaces.increment();
+            return;
+        }
+        SLOT.setRelease(entries, slot, entry);
+        if (current != MISS && (check ^ current) != key)
+            sharedEvictions.increment();
+    }
+
+    @Override
+    protected boolean replaceable(long key, long check, long current, int depth) {
+        return current == MISS || (check ^ current) == key || generationOf(current) != sharedGeneration
+            || depthOf(current) <= depth;
+    }
+
+    /**
+     * Starts a new search. Only the thread that owns the search calls this,
+     * before the helper threads start.
+     */
+    @Override
+    public void newSearch() {
+        super.newSearch();
+        sharedGeneration = generation;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        sharedGeneration = generation;
+    }
+
+    @Override
+    public void resetStatistics() {
+        super.resetStatistics();
+        sharedProbes.reset();
+        sharedHits.reset();
+        sharedStores.reset();
+        sharedEvictions.reset();
+        lostRaces.reset();
+    }
+
+    @Override
+    public double getHitRate() {
+        long count = sharedProbes.sum();
+        return count == 0 ? 0.0 : (double) sharedHits.sum() / count;
+    }
+
+    @Override
+    public long getProbeCount() {
+        return sharedProbes.sum();
+    }
+
+    @Override
+    public long getHitCount() {
+        return sharedHits.sum();
+    }
+
+    @Override
+    public long getStoreCount() {
+        return sharedStores.sum();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return sharedEvictions.sum();
+    }
+    /**
+     * Gets the number of stores dropped because another thread wrote the
+     * same slot at the same time
+     * @return the lost race count
+     */
+    public long getLostRaceCount() {
+        return lostRaces.sum();
+    }
+}
@@ -0,0 +1,133 @@
+package com.hyfi.tictactoe;
+// Imports
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The SolutionTable class answers 3x3 positions from a table of solved positions instead of searching. The table is a resource of one byte per base-3 position index (3^9 = 19,683 bytes) written by SolutionTableGenerator; each byte holds the game value for the player to move and the move Minimax would play. X always moves first, so the player to move follows from the number of empty cells.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public final class SolutionTable {
+    private static final Logger logger = LoggerFactory.getLogger(SolutionTable.class);
+
+    // Classpath location of the table
+    public static final String RESOURCE = "/solved3x3.bin";
+    // Board size the table covers
+    public static final int SIZE = 3;
+    // Number of entries, one per base-3 position index
+    public static final int ENTRIES = 19683;
+    // Entry of a position that is not in the table (unreachable or game over)
+    public static final int MISS = 0;
+
+    // Layout of an entry: bits 0-3 move + 1 | bits 4-5 value + 2
+    private static final int MOVE_MASK = 0x0F;
+    private static final int VALUE_SHIFT = 4;
+
+    // One entry per position index
+    private final byte[] entries;
+
+    /**
+     * Loads the table from the classpath once, on first use
+     */
+    private static final class Holder {
+        private static final SolutionTable INSTANCE = load();
+    }
+
+    /**
+     * Creates a table from its entries
+     * @param entries one entry per position index
+     */
+    SolutionTable(byte[] entries) {
+        this.entries = entries;
+    }
+    /**
+     * Gets the table bundled with the game
+     * @return the table, null if the resource is missing or damaged
+     */
+    public static SolutionTable getInstance() {
+        return Holder.INSTANCE;
+    }
+    /**
+     * Reads the table resource
+     * @return the table, null if the resource is missing or damaged
+     */
+    private static SolutionTable load() {
+        try (InputStream in = SolutionTable.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                logger.debug("Solution table {} not found", RESOURCE);
+                return null;
+            }
+            byte[] entries = in.readAllBytes();
+            if (entries.length != ENTRIES) {
+                logger.error("Solution table {} has {} bytes, expected {}", RESOURCE, entries.length, ENTRIES);
+                return null;
+            }
+            return new SolutionTable(entries);
+        } catch (IOException e) {
+            logger.error("Unable to read solution table...\n" + e.getMessage());
+            return null;
+        }
+    }
+    /**
+     * Gets the entry of a position
+     * @param index the base-3 position index
+     * @return the packed entry, MISS if the position is not in the table
+     */
+    public int lookup(int index) {
+        return index < 0 || index >= ENTRIES ? MISS : entries[index] & 0xFF;
+    }
+    /**
+     * Gets the entry of a game board for a player, who has to be the player
+     * to move in a game X started
+     * @param board		The game board
+     * @param player	The mark of the player to move
+     * @return			The packed entry, MISS if the table cannot answer
+     */
+    public int lookup(Board board, char player) {
+        if (board.getGameBoard().length != SIZE || !board.isClassic())
+            return MISS;
+        char toMove = board.getEmptyCellCount() % 2 == 1 ? 'X' : 'O';
+        return player == toMove ? lookup(board.getPositionIndex()) : MISS;
+    }
+    /**
+     * Gets the best move of a game board from the table
+     * @param board		The game board
+     * @param player	The mark of the player to move
+     * @return			The move Minimax would play, null if the table cannot answer
+     */
+    public Point getBestMove(Board board, char player) {
+        int entry = lookup(board, player);
+        if (entry == MISS)
+            return null;
+        int move = moveOf(entry);
+        return board.getPoint(move);
+    }
+    /**
+     * Packs a table entry
+     * @param move the subscript of the best move
+     * @param value the game value for the player to move, -1, 0 or 1
+     * @return the packed entry
+     */
+    static int pack(int move, int value) {
+        return (move + 1) | ((value + 2) << VALUE_SHIFT);
+    }
+    /**
+     * Gets the best move of an entry
+     * @param entry the packed entry
+     * @return the subscript of the best move
+     */
+    public static int moveOf(int entry) {
+        return (entry & MOVE_MASK) - 1;
+    }
+    /**
+     * Gets the game value of an entry
+     * @param entry the packed entry
+     * @return 1 for a win, 0 for a draw or -1 for a loss of the player to move
+     */
+    public static int valueOf(int entry) {
+        return (entry >>> VALUE_SHIFT) - 2;
+    }
+}
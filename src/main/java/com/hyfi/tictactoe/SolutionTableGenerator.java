@@ -0,0 +1,171 @@
+package com.hyfi.tictactoe;
+// Imports
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The SolutionTableGenerator class solves every 3x3 position reachable from the empty board with X moving first and writes the table read by SolutionTable. Game values are solved once per class of positions that are rotations or reflections of each other; the move of each position is then picked from the values of its replies by the same rule as Minimax, so the table plays exactly the moves the search would.
+ * Run it with the output file as the only argument, by default src/main/resources/solved3x3.bin.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public final class SolutionTableGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(SolutionTableGenerator.class);
+
+    // Default location of the generated table
+    public static final String DEFAULT_OUTPUT = "src/main/resources" + SolutionTable.RESOURCE;
+    private static final int SIZE = SolutionTable.SIZE;
+    private static final int CELLS = SIZE * SIZE;
+    // Marks of a cell, the digits of the position index
+    private static final int EMPTY = 0;
+    private static final int X = 1;
+    private static final int O = 2;
+
+    private final LineTable lineTable = LineTable.forSize(SIZE);
+    private final int[][] symmetries = Symmetry.permutations(SIZE);
+    // Game value + 2 of every solved canonical position, 0 while unsolved
+    private final byte[] solved = new byte[SolutionTable.ENTRIES];
+    // The table being built
+    private final byte[] table = new byte[SolutionTable.ENTRIES];
+    // Number of canonical positions solved
+    private int solvedCount;
+    // Number of positions written to the table
+    private int positionCount;
+
+    /**
+     * Solves every reachable position
+     * @return the table entries, one per position index
+     */
+    public byte[] generate() {
+        fill(new int[CELLS], X, CELLS);
+        logger.debug("Solved {} symmetry classes | {} positions in the table", solvedCount, positionCount);
+        return table;
+    }
+    /**
+     * Gets the number of canonical positions solved
+     * @return the solved count
+     */
+    public int getSolvedCount() {
+        return solvedCount;
+    }
+    /**
+     * Gets the number of positions written to the table
+     * @return the position count
+     */
+    public int getPositionCount() {
+        return positionCount;
+    }
+    /**
+     * Writes the entry of a position that is not over and of every position
+     * reachable from it
+     * @param cells		The marks of the cells
+     * @param toMove	The mark of the player to move
+     * @param empty		The number of empty cells
+     */
+    private void fill(int[] cells, int toMove, int empty) {
+        int index = indexOf(cells, null);
+        if (table[index] != SolutionTable.MISS)
+            return;
+        int[] scores = new int[CELLS];
+        boolean[] searched = new boolean[CELLS];
+        for (int sub = 0; sub < CELLS; sub++) {
+            if (cells[sub] != EMPTY)
+                continue;
+            cells[sub] = toMove;
+            if (wins(cells, sub))
+                scores[sub] = AlphaBeta.WIN_SCORE;
+            else if (empty > 1) {
+                scores[sub] = -solve(cells, other(toMove), empty - 1) * AlphaBeta.WIN_SCORE;
+                fill(cells, other(toMove), empty - 1);
+            }
+            searched[sub] = true;
+            cells[sub] = EMPTY;
+        }
+        int best = AlphaBeta.selectMove(scores, searched);
+        table[index] = (byte) SolutionTable.pack(best, Integer.signum(scores[best]));
+        positionCount++;
+    }
+    /**
+     * Gets the game value of a position that is not over, solving each
+     * class of symmetric positions once
+     * @param cells		The marks of the cells
+     * @param toMove	The mark of the player to move
+     * @param empty		The number of empty cells
+     * @return			1 for a win, 0 for a draw or -1 for a loss of the player to move
+     */
+    private int solve(int[] cells, int toMove, int empty) {
+        int canonical = Integer.MAX_VALUE;
+        for (int[] symmetry : symmetries)
+            canonical = Math.min(canonical, indexOf(cells, symmetry));
+        if (solved[canonical] != 0)
+            return solved[canonical] - 2;
+        int best = -1;
+        for (int sub = 0; sub < CELLS && best < 1; sub++) {
+            if (cells[sub] != EMPTY)
+                continue;
+            cells[sub] = toMove;
+            int score = wins(cells, sub) ? 1 : empty == 1 ? 0 : -solve(cells, other(toMove), empty - 1);
+            cells[sub] = EMPTY;
+            best = Math.max(best, score);
+        }
+        solved[canonical] = (byte) (best + 2);
+        solvedCount++;
+        return best;
+    }
+    /**
+     * Gets the base-3 index of a position, the same index Board keeps
+     * @param cells		The marks of the cells
+     * @param symmetry	The cell permutation to apply, null for none
+     * @return			The position index
+     */
+    private static int indexOf(int[] cells, int[] symmetry) {
+        int index = 0;
+        for (int sub = CELLS - 1; sub >= 0; sub--) {
+            int cell = symmetry == null ? sub : symmetry[sub];
+            index = index * 3 + cells[cell];
+        }
+        return index;
+    }
+    /**
+     * Checks if the mark on a cell completes a line through it
+     * @param cells	The marks of the cells
+     * @param sub	The subscript of the cell just played
+     * @return		true if the move won
+     */
+    private boolean wins(int[] cells, int sub) {
+        for (int line : lineTable.getLinesThrough(sub)) {
+            boolean owned = true;
+            for (int cell : lineTable.getLine(line))
+                owned &= cells[cell] == cells[sub];
+            if (owned)
+                return true;
+        }
+        return false;
+    }
+    /**
+     * Gets the other mark
+     * @param mark X or O
+     * @return the other mark
+     */
+    private static int other(int mark) {
+        return mark == X ? O : X;
+    }
+    /**
+     * Generates the table and writes it to a file
+     * @param args the output file, by default src/main/resources/solved3x3.bin
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        Path output = Paths.get(args.length > 0 ? args[0] : DEFAULT_OUTPUT);
+        long start = System.nanoTime();
+        SolutionTableGenerator generator = new SolutionTableGenerator();
+        byte[] table = generator.generate();
+        Files.write(output, table);
+        System.out.printf("Wrote %d positions (%d symmetry classes) to %s in %d ms%n",
+            generator.getPositionCount(), generator.getSolvedCount(), output, (System.nanoTime() - start) / 1_000_000L);
+    }
+}
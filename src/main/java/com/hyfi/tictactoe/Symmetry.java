@@ -0,0 +1,141 @@
+package com.hyfi.tictactoe;
+// Imports
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The Symmetry class holds the 8 rotations and reflections of a square game board (the dihedral group D4) as precomputed cell permutation tables. Positions that are rotations or reflections of each other have the same game value, so the search only needs to look at one of them. A rectangular board only has the half turn and the two flips; its other transforms are the identity, so the tables keep the same 8 entries for every shape.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public class Symmetry {
+
+    // Number of rotations and reflections of a square board
+    public static final int TRANSFORMS = 8;
+    // Index of the identity transform
+    public static final int IDENTITY = 0;
+    // Permutation tables per board shape, rows in the high half of the key
+    private static final Map<Long, int[][]> PERMUTATIONS = new ConcurrentHashMap<>();
+    private static final Map<Long, int[][]> INVERSES = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the cell permutations of a square board. Entry [t][sub] is the
+     * subscript the cell sub moves to under transform t:
+     * 0 identity, 1-3 rotations by 90/180/270 degrees, 4 horizontal flip,
+     * 5 vertical flip, 6 main diagonal flip, 7 anti-diagonal flip.
+     * @param size the board size
+     * @return the permutation tables
+     */
+    public static int[][] permutations(int size) {
+        return permutations(size, size);
+    }
+    /**
+     * Gets the cell permutations of a board shape. On a rectangular board
+     * the quarter turns and the diagonal flips are the identity.
+     * @param rows		The number of rows
+     * @param columns	The number of columns
+     * @return			The permutation tables
+     */
+    public static int[][] permutations(int rows, int columns) {
+        return PERMUTATIONS.computeIfAbsent(shapeKey(rows, columns), key -> buildPermutations(rows, columns));
+    }
+    /**
+     * Gets the inverse cell permutations of a square board. Entry [t][sub]
+     * is the subscript that moves to sub under transform t.
+     * @param size the board size
+     * @return the inverse permutation tables
+     */
+    public static int[][] inverses(int size) {
+        return inverses(size, size);
+    }
+    /**
+     * Gets the inverse cell permutations of a board shape
+     * @param rows		The number of rows
+     * @param columns	The number of columns
+     * @return			The inverse permutation tables
+     */
+    public static int[][] inverses(int rows, int columns) {
+        return INVERSES.computeIfAbsent(shapeKey(rows, columns), key -> {
+            int[][] perm = permutations(rows, columns);
+            int cells = rows * columns;
+            int[][] inverse = new int[TRANSFORMS][cells];
+            for (int t = 0; t < TRANSFORMS; t++) {
+                for (int sub = 0; sub < cells; sub++)
+                    inverse[t][perm[t][sub]] = sub;
+            }
+            return inverse;
+        });
+    }
+    /**
+     * Gets the key of a board shape in the permutation caches
+     * @param rows		The number of rows
+     * @param columns	The number of columns
+     * @return			The shape key
+     */
+    private static long shapeKey(int rows, int columns) {
+        return (long) rows << 32 | columns;
+    }
+    /**
+     * Builds the cell permutations of a board shape
+     * @param rows		The number of rows
+     * @param columns	The number of columns
+     * @return			The permutation tables
+     */
+    private static int[][] buildPermutations(int rows, int columns) {
+        boolean square = rows == columns;
+        int lastRow = rows - 1;
+        int lastCol = columns - 1;
+        int[][] perm = new int[TRANSFORMS][rows * columns];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                int sub = r * columns + c;
+                perm[0][sub] = sub;
+                perm[1][sub] = square ? c * columns + (lastRow - r) : sub;
+                perm[2][sub] = (lastRow - r) * columns + (lastCol - c);
+                perm[3][sub] = square ? (lastCol - c) * columns + r : sub;
+                perm[4][sub] = r * columns + (lastCol - c);
+                perm[5][sub] = (lastRow - r) * columns + c;
+                perm[6][sub] = square ? c * columns + r : sub;
+                perm[7][sub] = square ? (lastCol - c) * columns + (lastRow - r) : sub;
+            }
+        }
+        return perm;
+    }
+    /**
+     * Groups the empty cells of a position into classes of equivalent moves.
+     * Two moves are equivalent when a rotation or reflection that leaves the
+     * position unchanged maps one onto the other. Each empty cell is mapped
+     * to the lowest subscript of its class, occupied cells to -1.
+     * @param board the game board
+     * @return the representative move of every cell
+     */
+    public static int[] representativeMoves(Board board) {
+        char[][] gameBoard = board.getGameBoard();
+        int columns = board.getColumnCount();
+        int cells = board.getRowCount() * columns;
+        int[][] perm = permutations(board.getRowCount(), columns);
+        // Collect the transforms that leave the position unchanged
+        boolean[] stabilizes = new boolean[TRANSFORMS];
+        for (int t = 0; t < TRANSFORMS; t++) {
+            stabilizes[t] = true;
+            for (int sub = 0; sub < cells && stabilizes[t]; sub++) {
+                int image = perm[t][sub];
+                stabilizes[t] = gameBoard[sub / columns][sub % columns] == gameBoard[image / columns][image % columns];
+            }
+        }
+        int[] representative = new int[cells];
+        for (int sub = 0; sub < cells; sub++) {
+            if (gameBoard[sub / columns][sub % columns] != board.getNoPlayer()) {
+                representative[sub] = -1;
+                continue;
+            }
+            int lowest = sub;
+            for (int t = 0; t < TRANSFORMS; t++) {
+                if (stabilizes[t])
+                    lowest = Math.min(lowest, perm[t][sub]);
+            }
+            representative[sub] = lowest;
+        }
+        return representative;
+    }
+}
@@ -0,0 +1,249 @@
+package com.hyfi.tictactoe;
+// Imports
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The Tablebase class answers 4x4 positions from the file written by TablebaseBuilder instead of searching. The file holds one 4-bit code per base-3 position index (3^16 states, about 21.5 MB): win, draw or loss for the player to move and, for wins and losses, the number of moves the winner still has to make. The file is mapped into memory with a MappedByteBuffer, so opening it costs nothing and the operating system only reads the pages a game touches.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public final class Tablebase {
+    private static final Logger logger = LoggerFactory.getLogger(Tablebase.class);
+
+    // Default location of the tablebase file
+    public static final String DEFAULT_FILE = "data/tablebase4x4.bin";
+    // Board size the tablebase covers
+    public static final int SIZE = 4;
+    // Number of cells of the board
+    public static final int CELLS = SIZE * SIZE;
+    // Number of codes, one per base-3 position index
+    public static final int ENTRIES = 43_046_721;
+    // File header: magic, version, board size, number of codes
+    static final int MAGIC = 0x54544234;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+
+    // Codes of a position: UNKNOWN for a position that is over or cannot
+    // occur, DRAW, WIN_BASE + k for a win on the k-th move of the player to move,
+    // LOSS_BASE + k for a loss on the k-th move of the opponent
+    public static final int UNKNOWN = 0;
+    public static final int DRAW = 1;
+    static final int WIN_BASE = 1;
+    static final int LOSS_BASE = 8;
+    // Largest number of moves a code can hold
+    public static final int MAX_DISTANCE = 7;
+
+    // Powers of three, the weight of each cell in the position index
+    private static final int[] POWERS_OF_THREE = new int[CELLS];
+    static {
+        POWERS_OF_THREE[0] = 1;
+        for (int i = 1; i < CELLS; i++)
+            POWERS_OF_THREE[i] = POWERS_OF_THREE[i - 1] * 3;
+    }
+
+    // The mapped file
+    private final MappedByteBuffer buffer;
+    private final LineTable lineTable = LineTable.forSize(SIZE);
+
+    /**
+     * Opens the tablebase file once, on first use
+     */
+    private static final class Holder {
+        private static final Tablebase INSTANCE = openDefault();
+    }
+
+    /**
+     * Creates a tablebase on a mapped file
+     * @param buffer the mapped file, header included
+     */
+    private Tablebase(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+    /**
+     * Maps a tablebase file
+     * @param file the file written by TablebaseBuilder
+     * @return the tablebase
+     * @throws IOException if the file cannot be mapped or is not a 4x4 tablebase
+     */
+    public static Tablebase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long expected = HEADER_BYTES + (ENTRIES + 1) / 2;
+            if (channel.size() != expected)
+                throw new IOException("Tablebase " + file + " has " + channel.size() + " bytes, expected " + expected);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, expected);
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != SIZE
+                    || buffer.getInt(12) != ENTRIES)
+                throw new IOException("Tablebase " + file + " has an unknown header");
+            // The mapping stays valid after the channel is closed
+            return new Tablebase(buffer);
+        }
+    }
+    /**
+     * Gets the tablebase at DEFAULT_FILE
+     * @return the tablebase, null if the file has not been built
+     */
+    public static Tablebase getInstance() {
+        return Holder.INSTANCE;
+    }
+    /**
+     * Maps the tablebase at DEFAULT_FILE
+     * @return the tablebase, null if the file is missing or damaged
+     */
+    private static Tablebase openDefault() {
+        Path file = Paths.get(DEFAULT_FILE);
+        if (!Files.isRegularFile(file)) {
+            logger.debug("Tablebase {} not found", file);
+            return null;
+        }
+        try {
+            return open(file);
+        } catch (IOException e) {
+            logger.error("Unable to map tablebase...\n" + e.getMessage());
+            return null;
+        }
+    }
+    /**
+     * Gets the code of a position
+     * @param index the base-3 position index
+     * @return the 4-bit code, UNKNOWN if the index is out of range
+     */
+    public int probe(int index) {
+        if (index < 0 || index >= ENTRIES)
+            return UNKNOWN;
+        int packed = buffer.get(HEADER_BYTES + (index >>> 1));
+        return (index & 1) == 0 ? packed & 0x0F : (packed >>> 4) & 0x0F;
+    }
+    /**
+     * Gets the code of a game board for a player, who has to be the player
+     * to move in a game X started
+     * @param board		The game board
+     * @param player	The mark of the player to move
+     * @return			The code, UNKNOWN if the tablebase cannot answer
+     */
+    public int probe(Board board, char player) {
+        if (board.getGameBoard().length != SIZE || !board.isClassic() || player != sideToMove(board))
+            return UNKNOWN;
+        return probe(board.getPositionIndex());
+    }
+    /**
+     * Gets the best move of a game board from the tablebase: the fastest win,
+     * otherwise the last drawing cell in row-major order like Minimax,
+     * otherwise the slowest loss.
+     * @param board		The game board
+     * @param player	The mark of the player to move
+     * @return			The best move, null if the tablebase cannot answer
+     */
+    public Point getBestMove(Board board, char player) {
+        if (probe(board, player) == UNKNOWN)
+            return null;
+        int index = board.getPositionIndex();
+        int digit = player == 'X' ? 1 : 2;
+        long bits = board.getBitboard(player);
+        long occupied = board.getBitboard('X') | board.getBitboard('O');
+        int best = -1;
+        int bestRank = Integer.MIN_VALUE;
+        for (int sub = 0; sub < CELLS; sub++) {
+            if ((occupied & (1L << sub)) != 0)
+                continue;
+            int code = completesLine(bits | (1L << sub), sub) ? WIN_BASE + 1
+                : fromChild(probe(index + digit * POWERS_OF_THREE[sub]));
+            int rank = rankOf(code);
+            // Equal wins and losses keep the first cell, equal draws the last
+            if (rank > bestRank || (rank == bestRank && code == DRAW)) {
+                bestRank = rank;
+                best = sub;
+            }
+        }
+        return best < 0 ? null : board.getPoint(best);
+    }
+    /**
+     * Checks if a player's marks complete a line through a cell
+     * @param bits	The bitboard of the player
+     * @param sub	The cell subscript
+     * @return		true if a line through the cell is complete
+     */
+    boolean completesLine(long bits, int sub) {
+        for (int line : lineTable.getLinesThrough(sub)) {
+            long mask = lineTable.getMask(line);
+            if ((bits & mask) == mask)
+                return true;
+        }
+        return false;
+    }
+    /**
+     * Gets the player to move in a game X started
+     * @param board the game board
+     * @return X with an even number of empty cells, O otherwise
+     */
+    static char sideToMove(Board board) {
+        return board.getEmptyCellCount() % 2 == 0 ? 'X' : 'O';
+    }
+    /**
+     * Turns the code of a position after a move into the code of the move
+     * for the player who made it
+     * @param child the code for the player to move after the move
+     * @return the code for the player who made the move
+     */
+    static int fromChild(int child) {
+        if (isWin(child))
+            return LOSS_BASE + distanceOf(child);
+        if (isLoss(child))
+            return WIN_BASE + distanceOf(child) + 1;
+        return child;
+    }
+    /**
+     * Orders codes from best to worst for the player to move: faster wins,
+     * then draws, then slower losses
+     * @param code the code
+     * @return a rank, higher is better
+     */
+    static int rankOf(int code) {
+        if (isWin(code))
+            return 100 - distanceOf(code);
+        if (isLoss(code))
+            return -100 + distanceOf(code);
+        return code == DRAW ? 0 : Integer.MIN_VALUE;
+    }
+    /**
+     * Checks if a code is a win for the player to move
+     * @param code the code
+     * @return true for a win
+     */
+    public static boolean isWin(int code) {
+        return code > WIN_BASE && code <= WIN_BASE + MAX_DISTANCE;
+    }
+    /**
+     * Checks if a code is a loss for the player to move
+     * @param code the code
+     * @return true for a loss
+     */
+    public static boolean isLoss(int code) {
+        return code > LOSS_BASE && code <= LOSS_BASE + MAX_DISTANCE;
+    }
+    /**
+     * Gets the number of moves the winner still has to make
+     * @param code a win or loss code
+     * @return the distance in moves of the winner, 0 for a draw
+     */
+    public static int distanceOf(int code) {
+        return isWin(code) ? code - WIN_BASE : isLoss(code) ? code - LOSS_BASE : 0;
+    }
+    /**
+     * Gets the game value of a code
+     * @param code the code
+     * @return 1 for a win, 0 for a draw or -1 for a loss of the player to move
+     */
+    public static int valueOf(int code) {
+        return isWin(code) ? 1 : isLoss(code) ? -1 : 0;
+    }
+}
@@ -0,0 +1,225 @@
+package com.hyfi.tictactoe;
+// Imports
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * The TablebaseBuilder class solves every 4x4 position by retrograde analysis and writes the file read by Tablebase. Positions are solved in layers by number of marks, from the full boards back to the empty board; a move always adds a mark, so every position of a layer only depends on the layer after it, and the positions of a layer are solved in parallel on all cores.
+ * Each position index is split into two halves of eight cells, and precomputed tables of the 3^8 halves give the marks and bitboards of a position without decoding it cell by cell.
+ * Run it with the output file as the only argument, by default data/tablebase4x4.bin.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public final class TablebaseBuilder {
+    private static final Logger logger = LoggerFactory.getLogger(TablebaseBuilder.class);
+
+    private static final int CELLS = Tablebase.CELLS;
+    private static final int HALF_CELLS = CELLS / 2;
+    // Number of index values of half a board, 3^8
+    private static final int HALF_ENTRIES = 6561;
+    // Powers of three, the weight of each cell in the position index
+    private static final int[] POWERS_OF_THREE = new int[CELLS];
+    // Number of X and O marks and their bitboards per half board
+    private static final byte[] HALF_X_COUNT = new byte[HALF_ENTRIES];
+    private static final byte[] HALF_O_COUNT = new byte[HALF_ENTRIES];
+    private static final int[] HALF_X_BITS = new int[HALF_ENTRIES];
+    private static final int[] HALF_O_BITS = new int[HALF_ENTRIES];
+    static {
+        POWERS_OF_THREE[0] = 1;
+        for (int i = 1; i < CELLS; i++)
+            POWERS_OF_THREE[i] = POWERS_OF_THREE[i - 1] * 3;
+        for (int half = 0; half < HALF_ENTRIES; half++) {
+            int rest = half;
+            for (int sub = 0; sub < HALF_CELLS; sub++, rest /= 3) {
+                if (rest % 3 == 1) {
+                    HALF_X_COUNT[half]++;
+                    HALF_X_BITS[half] |= 1 << sub;
+                } else if (rest % 3 == 2) {
+                    HALF_O_COUNT[half]++;
+                    HALF_O_BITS[half] |= 1 << sub;
+                }
+            }
+        }
+    }
+
+    private final LineTable lineTable = LineTable.forSize(Tablebase.SIZE);
+    // Two codes per byte, the even index in the low nibble
+    private final byte[] packed = new byte[(Tablebase.ENTRIES + 1) / 2];
+    // Number of positions solved
+    private final LongAdder solvedCount = new LongAdder();
+    // Highest distance found, the codes hold up to Tablebase.MAX_DISTANCE
+    private final AtomicInteger maxDistance = new AtomicInteger();
+
+    /**
+     * Solves every position
+     * @return the packed codes, two per byte
+     */
+    public byte[] build() {
+        for (int marks = CELLS; marks >= 0; marks--) {
+            long start = System.nanoTime();
+            int layer = marks;
+            // Each task owns one byte, so no two threads write the same byte.
+            // Children live in the finished layer; a task may rewrite the
+            // other nibble of a child's byte, but never the child's own.
+            IntStream.range(0, packed.length).parallel().forEach(b -> solvePair(b, layer));
+            logger.debug("Layer {} solved in {} ms", layer, (System.nanoTime() - start) / 1_000_000L);
+        }
+        logger.debug("Solved {} positions | Longest win or loss: {} moves", solvedCount.sum(), maxDistance.get());
+        return packed;
+    }
+    /**
+     * Gets the number of positions solved
+     * @return the solved count
+     */
+    public long getSolvedCount() {
+        return solvedCount.sum();
+    }
+    /**
+     * Gets the longest win or loss found
+     * @return the distance in moves of the winner
+     */
+    public int getMaxDistance() {
+        return maxDistance.get();
+    }
+    /**
+     * Solves the two positions of a byte that belong to a layer
+     * @param b		The byte index
+     * @param layer	The number of marks of the layer
+     */
+    private void solvePair(int b, int layer) {
+        int low = solve(2 * b, layer);
+        int high = 2 * b + 1 < Tablebase.ENTRIES ? solve(2 * b + 1, layer) : -1;
+        if (low < 0 && high < 0)
+            return;
+        int value = packed[b];
+        if (low >= 0)
+            value = (value & 0xF0) | low;
+        if (high >= 0)
+            value = (value & 0x0F) | (high << 4);
+        packed[b] = (byte) value;
+    }
+    /**
+     * Solves one position
+     * @param index	The base-3 position index
+     * @param layer	The number of marks of the layer being solved
+     * @return		The code of the position, -1 if it is not in the layer or has no code
+     */
+    private int solve(int index, int layer) {
+        int low = index % HALF_ENTRIES;
+        int high = index / HALF_ENTRIES;
+        int xCount = HALF_X_COUNT[low] + HALF_X_COUNT[high];
+        int oCount = HALF_O_COUNT[low] + HALF_O_COUNT[high];
+        if (xCount + oCount != layer || xCount - oCount < 0 || xCount - oCount > 1)
+            return -1;
+        long xBits = HALF_X_BITS[low] | ((long) HALF_X_BITS[high] << HALF_CELLS);
+        long oBits = HALF_O_BITS[low] | ((long) HALF_O_BITS[high] << HALF_CELLS);
+        // A position with a complete line is over and has no code
+        if (hasLine(xBits) || hasLine(oBits))
+            return -1;
+        solvedCount.increment();
+        if (layer == CELLS)
+            return Tablebase.DRAW;
+        boolean xToMove = xCount == oCount;
+        long bits = xToMove ? xBits : oBits;
+        int digit = xToMove ? 1 : 2;
+        long empty = ~(xBits | oBits) & ((1L << CELLS) - 1);
+        int best = Tablebase.UNKNOWN;
+        int bestRank = Integer.MIN_VALUE;
+        while (empty != 0L) {
+            int sub = Long.numberOfTrailingZeros(empty);
+            empty &= empty - 1;
+            if (completesLine(bits | (1L << sub), sub))
+                return Tablebase.WIN_BASE + 1;
+            int child = codeOf(index + digit * POWERS_OF_THREE[sub]);
+            if (Tablebase.isLoss(child) && Tablebase.distanceOf(child) == Tablebase.MAX_DISTANCE)
+                throw new IllegalStateException("Win of position " + index + " is too long for a code");
+            int code = Tablebase.fromChild(child);
+            int rank = Tablebase.rankOf(code);
+            if (rank > bestRank) {
+                bestRank = rank;
+                best = code;
+            }
+        }
+        int distance = Tablebase.distanceOf(best);
+        if (distance > maxDistance.get())
+            maxDistance.accumulateAndGet(distance, Math::max);
+        return best;
+    }
+    /**
+     * Gets the code of a solved position
+     * @param index the base-3 position index
+     * @return the code
+     */
+    private int codeOf(int index) {
+        int value = packed[index >>> 1];
+        return (index & 1) == 0 ? value & 0x0F : (value >>> 4) & 0x0F;
+    }
+    /**
+     * Checks if a bitboard holds a complete line
+     * @param bits the bitboard of a player
+     * @return true if any line is complete
+     */
+    private boolean hasLine(long bits) {
+        for (long mask : lineTable.getMasks()) {
+            if ((bits & mask) == mask)
+                return true;
+        }
+        return false;
+    }
+    /**
+     * Checks if a bitboard completes a line through a cell
+     * @param bits	The bitboard of a player
+     * @param sub	The cell subscript
+     * @return		true if a line through the cell is complete
+     */
+    private boolean completesLine(long bits, int sub) {
+        for (int line : lineTable.getLinesThrough(sub)) {
+            long mask = lineTable.getMask(line);
+            if ((bits & mask) == mask)
+                return true;
+        }
+        return false;
+    }
+    /**
+     * Writes the packed codes behind the tablebase header
+     * @param file		The output file
+     * @param codes		The packed codes
+     * @throws IOException if the file cannot be written
+     */
+    static void write(Path file, byte[] codes) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(Tablebase.HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+        header.putInt(Tablebase.MAGIC).putInt(Tablebase.VERSION).putInt(Tablebase.SIZE).putInt(Tablebase.ENTRIES);
+        header.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(header);
+            ByteBuffer body = ByteBuffer.wrap(codes);
+            while (body.hasRemaining())
+                channel.write(body);
+        }
+    }
+    /**
+     * Builds the tablebase and writes it to a file
+     * @param args the output file, by default data/tablebase4x4.bin
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        Path output = Paths.get(args.length > 0 ? args[0] : Tablebase.DEFAULT_FILE);
+        long start = System.nanoTime();
+        TablebaseBuilder builder = new TablebaseBuilder();
+        byte[] codes = builder.build();
+        write(output, codes);
+        System.out.printf("Wrote %d positions to %s in %d ms, longest win or loss %d moves%n",
+            builder.getSolvedCount(), output, (System.nanoTime() - start) / 1_000_000L, builder.getMaxDistance());
+    }
+}
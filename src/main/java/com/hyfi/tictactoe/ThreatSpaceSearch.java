@@ -0,0 +1,439 @@
+package com.hyfi.tictactoe;
+// Imports
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The ThreatSpaceSearch class looks for forcing sequences on k-in-a-row boards before the full-width search runs. It only plays threats: a four leaves one empty cell on a win line and the defender has to take it, an open three threatens a move that makes two fours at once, and a double four cannot be stopped. Because the defender's replies are limited to the cells that answer the threat, a forced win many moves deep is found in milliseconds where a full-width search would have to look at every quiet move. The same search tells when the opponent has such a sequence, and which move breaks it. Threats are read from the line counters of the board, so any (m,n,k) shape works.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public class ThreatSpaceSearch {
+    private static final Logger logger = LoggerFactory.getLogger(ThreatSpaceSearch.class);
+
+    // Default number of attacker moves in a forcing sequence
+    public static final int DEFAULT_MAX_DEPTH = 6;
+    // Default number of positions looked at per move
+    public static final long DEFAULT_NODE_BUDGET = 50_000;
+
+    private Board board;
+    // Attacker moves in a forcing sequence
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+    // Positions looked at per move, 0 for none
+    private long nodeBudget = DEFAULT_NODE_BUDGET;
+    // Open threes count as threats, false to search fours only
+    private boolean threes = true;
+    // Positions looked at by the last search
+    private long nodeCount;
+    // The win lines, column count and win length the buffers below were built for
+    private LineTable lineTable;
+    private int columns;
+    private int winLength;
+    // Cell lists per attacker move: candidates and defender replies
+    private int[][] moveBuffer;
+    private int[][] replyBuffer;
+    // The point of each cell subscript
+    private Point[] points;
+    // Stamp of the last collection a cell was added to, to keep cells distinct
+    private int[] seen;
+    private int stamp;
+    // First move of the forcing sequence found by the last proof
+    private int firstMove;
+
+    /**
+     * Initialize the search with a game board
+     * @param board the current game board
+     */
+    public ThreatSpaceSearch(Board board) {
+        logger.debug("Constructor init...");
+        this.board = board;
+    }
+    /**
+     * Set the game board
+     * @param board the game board
+     */
+    public void setGameBoard(Board board) {
+        this.board = board;
+    }
+    /**
+     * Sets the number of attacker moves in a forcing sequence
+     * @param maxDepth the maximum number of attacker moves
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = Math.max(1, maxDepth);
+    }
+    /**
+     * Gets the number of attacker moves in a forcing sequence
+     * @return the maximum number of attacker moves
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+    /**
+     * Sets the number of positions looked at per move
+     * @param nodeBudget the maximum number of positions, 0 for none
+     */
+    public void setNodeBudget(long nodeBudget) {
+        this.nodeBudget = nodeBudget;
+    }
+    /**
+     * Gets the number of positions looked at per move
+     * @return the maximum number of positions, 0 for none
+     */
+    public long getNodeBudget() {
+        return nodeBudget;
+    }
+    /**
+     * Turns the open threes on or off. Without them only sequences of fours
+     * are found, which is faster but finds fewer wins.
+     * @param threes true to play open threes as threats
+     */
+    public void setThrees(boolean threes) {
+        this.threes = threes;
+    }
+    /**
+     * Checks if open threes count as threats
+     * @return true if open threes are played as threats
+     */
+    public boolean isThrees() {
+        return threes;
+    }
+    /**
+     * Gets the number of positions looked at by the last search
+     * @return the node count
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+    /**
+     * The search method looks for a forced move of the player to move: a
+     * win, a block of a line the opponent is about to complete, the first
+     * move of a forcing sequence that wins, or a move that breaks a forcing
+     * sequence of the opponent. The board is left as it was.
+     * @param player	The mark of the player to move.
+     * @return			The forced move, null if the position is quiet.
+     */
+    public Point search(char player) {
+        long start = System.nanoTime();
+        nodeCount = 0;
+        int sub = findWin(player);
+        String reason = "forced win";
+        if (sub < 0) {
+            sub = findDefense(player);
+            reason = "forced defense";
+        }
+        if (sub < 0)
+            return null;
+        Point point = points[sub];
+        logger.debug("Threat-space search: {} at {} | Nodes: {} | {} ms", reason, point, nodeCount,
+            (System.nanoTime() - start) / 1_000_000L);
+        return point;
+    }
+    /**
+     * Looks for the shortest forcing sequence that wins for the player to
+     * move, deepening one attacker move at a time
+     * @param player	The mark of the player to move.
+     * @return			The subscript of the first move, -1 if none was found.
+     */
+    public int findWin(char player) {
+        prepare();
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            if (attackerWins(player, other(player), depth, 0))
+                return firstMove;
+            if (outOfBudget())
+                break;
+        }
+        return -1;
+    }
+    /**
+     * Looks for a move that stops the opponent's forcing sequences: a block
+     * of a line the opponent is about to complete, otherwise a cell of the
+     * opponent's threats after which the opponent has no forcing win left.
+     * @param player	The mark of the player to move.
+     * @return			The subscript of the defense, -1 if the opponent has no forcing win
+     * 					or the node budget ran out before a defense was proven.
+     */
+    public int findDefense(char player) {
+        prepare();
+        char opponent = other(player);
+        int[] cells = moveBuffer[0];
+        // A line the opponent can complete has to be blocked now
+        if (winningCells(opponent, player, cells) > 0)
+            return cells[0];
+        // Would the opponent win by force with the move?
+        if (!attackerWins(opponent, player, maxDepth, 0))
+            return -1;
+        int threat = firstMove;
+        int count = defenses(opponent, player, threat, cells);
+        for (int i = 0; i < count; i++) {
+            int sub = cells[i];
+            board.makeMove(cellOf(sub), player);
+            try {
+                if (board.isWinningMove(sub / columns, sub % columns))
+                    return sub;
+                boolean refuted = attackerWins(opponent, player, maxDepth, 1);
+                // Out of budget is not a refutation, leave the move to the search
+                if (outOfBudget())
+                    return -1;
+                if (!refuted)
+                    return sub;
+            } finally {
+                board.unmakeMove();
+            }
+        }
+        // Every defense loses, take the opponent's first move away
+        return threat;
+    }
+    /**
+     * Proves a forcing win for the attacker, who is to move. Every attacker
+     * move has to be a four or an open three; a four has one reply, an open
+     * three is answered on the cells of the attacker's threats or with a
+     * four of the defender's own.
+     * @param attacker	The mark of the attacker.
+     * @param defender	The mark of the defender.
+     * @param depth		The attacker moves left.
+     * @param ply		The attacker moves made so far.
+     * @return			true if the attacker wins by force, firstMove holds the move at ply 0.
+     */
+    private boolean attackerWins(char attacker, char defender, int depth, int ply) {
+        nodeCount++;
+        if (outOfBudget())
+            return false;
+        int[] cells = moveBuffer[ply];
+        if (winningCells(attacker, defender, cells) > 0)
+            return record(ply, cells[0]);
+        if (depth == 0)
+            return false;
+        int defenderWins = winningCells(defender, attacker, cells);
+        // Two lines the defender can complete can not both be blocked
+        if (defenderWins >= 2)
+            return false;
+        int count = defenderWins == 1 ? 1 : threatMoves(attacker, defender, cells);
+        int[] replies = replyBuffer[ply];
+        for (int i = 0; i < count; i++) {
+            int sub = cells[i];
+            board.makeMove(cellOf(sub), attacker);
+            try {
+                int fours = winningCells(attacker, defender, replies);
+                if (fours >= 2)
+                    return record(ply, sub);
+                if (fours == 1) {
+                    // The one reply to a four
+                    if (forcedReplyLoses(attacker, defender, replies[0], depth, ply))
+                        return record(ply, sub);
+                } else if (threes && makesOpenThree(attacker, defender, sub)) {
+                    int replyCount = defenses(attacker, defender, sub, replies);
+                    boolean refuted = replyCount == 0;
+                    for (int r = 0; r < replyCount && !refuted; r++)
+                        refuted = !forcedReplyLoses(attacker, defender, replies[r], depth, ply);
+                    if (!refuted)
+                        return record(ply, sub);
+                }
+            } finally {
+                board.unmakeMove();
+            }
+        }
+        return false;
+    }
+    /**
+     * Checks if the search has looked at more positions than the budget allows
+     * @return true if the node budget ran out
+     */
+    private boolean outOfBudget() {
+        return nodeBudget > 0 && nodeCount > nodeBudget;
+    }
+    /**
+     * Plays a defender reply and checks if the attacker still wins by force
+     * @param attacker	The mark of the attacker.
+     * @param defender	The mark of the defender.
+     * @param reply		The subscript of the defender's reply.
+     * @param depth		The attacker moves left before the last attacker move.
+     * @param ply		The attacker moves made before the last attacker move.
+     * @return			true if the reply does not save the defender
+     */
+    private boolean forcedReplyLoses(char attacker, char defender, int reply, int depth, int ply) {
+        board.makeMove(cellOf(reply), defender);
+        try {
+            return !board.isWinningMove(reply / columns, reply % columns)
+                && attackerWins(attacker, defender, depth - 1, ply + 1);
+        } finally {
+            board.unmakeMove();
+        }
+    }
+    /**
+     * Records the move of a proven sequence
+     * @param ply	The attacker moves made before it
+     * @param sub	The subscript of the move
+     * @return		true
+     */
+    private boolean record(int ply, int sub) {
+        if (ply == 0)
+            firstMove = sub;
+        return true;
+    }
+    /**
+     * Collects the cells that complete a win line for a player
+     * @param player	The mark of the player.
+     * @param opponent	The mark of the other player.
+     * @param out		The buffer the cells are written to.
+     * @return			The number of distinct cells.
+     */
+    private int winningCells(char player, char opponent, int[] out) {
+        stamp++;
+        int count = 0;
+        for (int line = 0; line < lineTable.getLineCount(); line++) {
+            if (board.getLineCount(player, line) == winLength - 1 && board.getLineCount(opponent, line) == 0)
+                count = addEmptyCells(line, out, count);
+        }
+        return count;
+    }
+    /**
+     * Collects the attacker moves that make a four, followed by the moves
+     * that make a line of winLength - 3 marks into one of winLength - 2 when
+     * open threes are searched
+     * @param attacker	The mark of the attacker.
+     * @param defender	The mark of the defender.
+     * @param out		The buffer the cells are written to.
+     * @return			The number of distinct cells.
+     */
+    private int threatMoves(char attacker, char defender, int[] out) {
+        stamp++;
+        int count = 0;
+        int lowest = threes ? winLength - 3 : winLength - 2;
+        for (int marks = winLength - 2; marks >= Math.max(lowest, 0); marks--) {
+            for (int line = 0; line < lineTable.getLineCount(); line++) {
+                if (board.getLineCount(attacker, line) == marks && board.getLineCount(defender, line) == 0)
+                    count = addEmptyCells(line, out, count);
+            }
+        }
+        return count;
+    }
+    /**
+     * Checks if the attacker's last move made an open three: a cell from
+     * which the next move makes two fours at once
+     * @param attacker	The mark of the attacker.
+     * @param defender	The mark of the defender.
+     * @param sub		The subscript of the last attacker move.
+     * @return			true if the move threatens a double four
+     */
+    private boolean makesOpenThree(char attacker, char defender, int sub) {
+        for (int line : lineTable.getLinesThrough(sub)) {
+            if (board.getLineCount(attacker, line) != winLength - 2 || board.getLineCount(defender, line) != 0)
+                continue;
+            for (int cell : lineTable.getLine(line)) {
+                if (isEmpty(cell) && foursFrom(attacker, defender, cell) >= 2)
+                    return true;
+            }
+        }
+        return false;
+    }
+    /**
+     * Counts the distinct cells that would complete a line after a move
+     * @param attacker	The mark of the player making the move.
+     * @param defender	The mark of the other player.
+     * @param cell		The subscript of the empty cell of the move.
+     * @return			The number of fours the move would make
+     */
+    private int foursFrom(char attacker, char defender, int cell) {
+        stamp++;
+        int count = 0;
+        for (int line : lineTable.getLinesThrough(cell)) {
+            if (board.getLineCount(attacker, line) != winLength - 2 || board.getLineCount(defender, line) != 0)
+                continue;
+            for (int other : lineTable.getLine(line)) {
+                if (other != cell && isEmpty(other) && seen[other] != stamp) {
+                    seen[other] = stamp;
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+    /**
+     * Collects the defender replies to a threat: the empty cells of the
+     * attacker's lines of winLength - 2 marks or more, and the cells where
+     * the defender makes a four of its own. Cells on the lines through the
+     * attacker's last move come first.
+     * @param attacker	The mark of the attacker.
+     * @param defender	The mark of the defender.
+     * @param last		The subscript of the attacker's last move, -1 if none.
+     * @param out		The buffer the cells are written to.
+     * @return			The number of distinct cells.
+     */
+    private int defenses(char attacker, char defender, int last, int[] out) {
+        stamp++;
+        int count = 0;
+        if (last >= 0) {
+            for (int line : lineTable.getLinesThrough(last)) {
+                if (board.getLineCount(attacker, line) >= winLength - 2 && board.getLineCount(defender, line) == 0)
+                    count = addEmptyCells(line, out, count);
+            }
+        }
+        for (int line = 0; line < lineTable.getLineCount(); line++) {
+            if (board.getLineCount(attacker, line) >= winLength - 2 && board.getLineCount(defender, line) == 0)
+                count = addEmptyCells(line, out, count);
+            else if (board.getLineCount(defender, line) == winLength - 2 && board.getLineCount(attacker, line) == 0)
+                count = addEmptyCells(line, out, count);
+        }
+        return count;
+    }
+    /**
+     * Adds the empty cells of a line that are not in the collection yet
+     * @param line	The line index
+     * @param out	The collection
+     * @param count	The number of cells in the collection
+     * @return		The new number of cells in the collection
+     */
+    private int addEmptyCells(int line, int[] out, int count) {
+        for (int cell : lineTable.getLine(line)) {
+            if (seen[cell] != stamp && isEmpty(cell)) {
+                seen[cell] = stamp;
+                out[count++] = cell;
+            }
+        }
+        return count;
+    }
+    /**
+     * Checks if a cell is empty
+     * @param sub the cell subscript
+     * @return true if no mark is on the cell
+     */
+    private boolean isEmpty(int sub) {
+        return board.getGameBoard()[sub / columns][sub % columns] == board.getNoPlayer();
+    }
+    /**
+     * Gets the point of a cell
+     * @param sub the cell subscript
+     * @return the point, row and column counted from 0
+     */
+    private Point cellOf(int sub) {
+        return points[sub];
+    }
+    /**
+     * Gets the other mark
+     * @param player X or O
+     * @return the other mark
+     */
+    private static char other(char player) {
+        return player == 'X' ? 'O' : 'X';
+    }
+    /**
+     * Builds the buffers when the board shape changes.
+     */
+    private void prepare() {
+        LineTable lines = board.getLineTable();
+        if (lines == lineTable && moveBuffer.length == maxDepth + 2)
+            return;
+        lineTable = lines;
+        columns = board.getColumnCount();
+        winLength = lines.getWinLength();
+        int cells = board.getRowCount() * columns;
+        moveBuffer = new int[maxDepth + 2][cells];
+        replyBuffer = new int[maxDepth + 2][cells];
+        seen = new int[cells];
+        points = new Point[cells];
+        for (int sub = 0; sub < cells; sub++)
+            points[sub] = board.getPoint(sub);
+        stamp = 0;
+    }
+}
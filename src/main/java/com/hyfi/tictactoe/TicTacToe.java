@@ -4,8 +4,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 // Class imports
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Random;
 import java.util.Scanner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 /**
  * This is a Tic Tac Toe game. It allows the user to play against the computer. Two players take turns to place their mark on a "3X3" grid of spaces with an X or 0. The player to move first will be randomly chosen. The first player will be assigned "X" and "0" will be assigned to the second player. The player who succeeds first in placing three marks in horizontal, vertical, or diagonal row wins the game. The game board is designed from a 1 dimensional array. 
  * @version 2.2
@@ -21,8 +25,50 @@ public class TicTacToe {
     private Board board;
     // Instantiate Minimax class algorithm
     private Minimax mini;
+    // Instantiate AlphaBeta class algorithm
+    private AlphaBeta alphaBeta;
+    // Instantiate IterativeDeepening class algorithm
+    private IterativeDeepening deepening;
+    // Instantiate the IterativeDeepening class with principal variation search
+    private IterativeDeepening pvs;
+    // Instantiate ParallelSearch class algorithm
+    private ParallelSearch parallel;
+    // Instantiate LazySmpSearch class algorithm
+    private LazySmpSearch lazySmp;
+    // The table of solved 3x3 positions, null if it is not on the classpath
+    private SolutionTable solutionTable;
+    // The 4x4 tablebase, null if it has not been built
+    private Tablebase tablebase;
+    // Instantiate MonteCarloTreeSearch class algorithm
+    private MonteCarloTreeSearch monteCarlo;
+    // Plays immediate wins and single forced blocks without searching
+    private TacticalMoves tactics;
+    // Finds forced wins and defenses before searching, null on classic boards
+    private ThreatSpaceSearch threatSearch;
+    // Board size searched to the end on all cores
+    private static final int PARALLEL_BOARD_SIZE = 4;
+    // Smallest board size searched within a time budget instead of to the end
+    private static final int BUDGETED_BOARD_SIZE = 5;
+    // Smallest board size played by Monte Carlo tree search
+    private static final int MCTS_BOARD_SIZE = 7;
+    // Distance from the marks within which the searches look for moves on
+    // budgeted boards where fewer than a whole row wins
+    private static final int CANDIDATE_RADIUS = 2;
+    // Half width of the aspiration window of the PVS search, the value of
+    // one open line of three marks in the board evaluation
+    private static final int ASPIRATION_WINDOW = 64;
+    // The algorithm used to find the computer move
+    private SearchMode searchMode;
+    // System property selecting the search mode by name
+    private static final String SEARCH_PROPERTY = "tictactoe.search";
+    // Value of the search property selecting the recommended mode of the board shape
+    private static final String AUTO_SEARCH = "AUTO";
     // Instantiate the PointAndScore class
     PointAndScore print;
+    // System property naming the file of the binary search trace
+    private static final String TRACE_PROPERTY = "tictactoe.trace";
+    // The binary trace the game statistics go to, null for the text lines of PointAndScore.DATA_FILE
+    private SearchTrace trace;
     // A new instance of the random class.
     private Random rand = new Random();
     // A constant that represents user
@@ -31,6 +77,8 @@ public class TicTacToe {
     private static final int COMPUTERS_TURN = 0;
     // remember to get the size of the game board
     private int boardSize;
+    // The number of columns, the same as boardSize unless the board is rectangular
+    private int columns;
     // Holds the symbol/mark computer will be assigned at the start of game
     private char computersMark;
     // Holds the symbol/mark user will be assigned at the start of game
@@ -45,6 +93,8 @@ public class TicTacToe {
     private String input;
     // Input validator
     private String inputValidator;
+    // Board size answers: N, MxN, N,K or MxN,K for K in a row
+    private static final Pattern BOARD_SHAPE = Pattern.compile("^([0-9]+)(?:x([0-9]+))?(?:,([0-9]+))?$");
     /**
      * Constructor of main class
      */
@@ -55,38 +105,200 @@ public class TicTacToe {
         board = this.askBoardSize() ;
         // assign the boardSize
         boardSize =  board.getGameBoard().length;
-        // Instantiate Minimax class algorithm
-        mini = new Minimax(board);
-        // Instantiate the PointAndScore class
+        columns = board.getColumnCount();
+        // Pick the engine by the longer side of the board
+        int longestSide = Math.max(boardSize, columns);
+        if (longestSide >= BUDGETED_BOARD_SIZE && !board.isClassic())
+            board.setCandidateRadius(CANDIDATE_RADIUS);
+        // Answer 3x3 positions without searching
+        solutionTable = SolutionTable.getInstance();
+        // Answer 4x4 positions from the mapped tablebase when it was built
+        tablebase = boardSize == Tablebase.SIZE && board.isClassic() ? Tablebase.getInstance() : null;
+        // Instantiate the PointAndScore class, Minimax writes through it too
         print = new PointAndScore(board);
+        // Write the game statistics as a binary trace when one is asked for
+        openSearchTrace();
+        // Minimax stays the default, the other engines are chosen with the
+        // tictactoe.search system property or setSearchMode
+        setSearchMode(readSearchMode());
         //
-        this.inputValidator = "^[0-"+board.getGameBoard().length+"]{"+input.length()+"}$";
+        this.inputValidator = "^[0-9]{1,"+String.valueOf(longestSide).length()+"}$";
         logger.debug("Input Validator: {} | Board Length: {}", inputValidator, board.getGameBoard().length);;
                
     }
+    /**
+     * Sets the algorithm used to find the computer move and builds its
+     * engine, unless an earlier mode already built it
+     * @param searchMode the search mode
+     */
+    public void setSearchMode(SearchMode searchMode) {
+        this.searchMode = searchMode;
+        buildEngine();
+    }
+    /**
+     * Gets the algorithm used to find the computer move
+     * @return the search mode
+     */
+    public SearchMode getSearchMode() {
+        return searchMode;
+    }
+    /**
+     * Gets the fastest algorithm for the board shape: a table of solved
+     * positions where one covers the board, the root-split search on 4x4,
+     * iterative deepening within a budget from 5x5 and Monte Carlo tree
+     * search from 7x7
+     * @return the search mode for the board shape
+     */
+    public SearchMode getRecommendedSearchMode() {
+        int longestSide = Math.max(boardSize, columns);
+        return longestSide >= MCTS_BOARD_SIZE ? SearchMode.MCTS
+            : longestSide >= BUDGETED_BOARD_SIZE ? SearchMode.ITERATIVE_DEEPENING
+            : boardSize == Tablebase.SIZE && tablebase != null ? SearchMode.TABLE
+            : longestSide == PARALLEL_BOARD_SIZE ? SearchMode.PARALLEL
+            : boardSize == SolutionTable.SIZE && board.isClassic() && solutionTable != null ? SearchMode.TABLE
+            : SearchMode.ALPHA_BETA;
+    }
+    /**
+     * Reads the search mode from the tictactoe.search system property: the
+     * name of a search mode, or AUTO for the recommended mode of the board
+     * shape
+     * @return the search mode, MINIMAX when the property is not set
+     * @throws IllegalArgumentException if the property names no search mode
+     */
+    private SearchMode readSearchMode() {
+        String selected = System.getProperty(SEARCH_PROPERTY, SearchMode.MINIMAX.name()).trim().toUpperCase();
+        if (selected.equals(AUTO_SEARCH))
+            return getRecommendedSearchMode();
+        try {
+            return SearchMode.valueOf(selected);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + SEARCH_PROPERTY + " \"" + selected + "\", expected "
+                + AUTO_SEARCH + " or one of " + Arrays.toString(SearchMode.values()), e);
+        }
+    }
+    /**
+     * Opens the binary search trace named by the tictactoe.trace system
+     * property, so the records of Minimax and the result of every move go
+     * to it instead of PointAndScore.DATA_FILE. A trace that cannot be
+     * opened is logged and the text lines are written instead.
+     */
+    private void openSearchTrace() {
+        String traceFile = System.getProperty(TRACE_PROPERTY);
+        if (traceFile == null || traceFile.trim().isEmpty())
+            return;
+        try {
+            trace = SearchTrace.open(Paths.get(traceFile.trim()), boardSize, columns);
+            print.setSearchTrace(trace);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Unable to open search trace " + traceFile + "...\n" + e.getMessage());
+        }
+    }
+    /**
+     * Writes the records still buffered by the search trace and closes it,
+     * the game statistics go to PointAndScore.DATA_FILE afterwards
+     * @throws IOException if the records cannot be written
+     */
+    public void closeSearchTrace() throws IOException {
+        if (trace == null)
+            return;
+        print.setSearchTrace(null);
+        try {
+            trace.close();
+        } finally {
+            trace = null;
+        }
+    }
+    /**
+     * Builds the engine of the search mode, unless an earlier mode already
+     * built it, so only the engines the game plays with hold their tables
+     */
+    private void buildEngine() {
+        int longestSide = Math.max(boardSize, columns);
+        if (searchMode == SearchMode.MINIMAX) {
+            if (mini == null)
+                mini = new Minimax(board, print);
+            return;
+        }
+        if (tactics == null) {
+            // Take a winning cell or block the only winning cell of the opponent before searching
+            tactics = new TacticalMoves(board);
+            // Play forcing sequences of fours and threes where fewer than a whole row wins
+            threatSearch = board.isClassic() ? null : new ThreatSpaceSearch(board);
+        }
+        if (searchMode == SearchMode.MCTS) {
+            // Sample random games on boards too large to search
+            if (monteCarlo == null)
+                monteCarlo = new MonteCarloTreeSearch(board);
+        } else if (searchMode == SearchMode.LAZY_SMP) {
+            // Share one table between a search per core
+            if (lazySmp == null)
+                lazySmp = new LazySmpSearch(board);
+        } else if (searchMode == SearchMode.PARALLEL) {
+            // Split the search of the root moves across all cores
+            if (parallel == null)
+                parallel = new ParallelSearch(board);
+        } else if (searchMode == SearchMode.PVS) {
+            // Deepen a separate search with null windows, so node counts can be compared
+            if (pvs == null) {
+                AlphaBeta negaScout = new AlphaBeta(board);
+                negaScout.setPrincipalVariationSearch(true);
+                // The killer and history tables carry over from move to move of the game
+                if (longestSide >= BUDGETED_BOARD_SIZE)
+                    negaScout.setMoveOrdering(MoveOrdering.KILLER_HISTORY);
+                pvs = new IterativeDeepening(board, negaScout);
+                pvs.setAspirationWindow(ASPIRATION_WINDOW);
+            }
+        } else {
+            // ALPHA_BETA, TABLE for the positions the tables miss, and
+            // ITERATIVE_DEEPENING, which deepens the same search
+            if (alphaBeta == null) {
+                alphaBeta = new AlphaBeta(board);
+                // The killer and history tables carry over from move to move of the game
+                if (longestSide >= BUDGETED_BOARD_SIZE)
+                    alphaBeta.setMoveOrdering(MoveOrdering.KILLER_HISTORY);
+            }
+            if (searchMode == SearchMode.ITERATIVE_DEEPENING && deepening == null)
+                deepening = new IterativeDeepening(board, alphaBeta);
+        }
+    }
+    /**
+     * Looks the computer move up in the table of solved positions of the
+     * board size
+     * @return the move, null if no table covers the position
+     */
+    private Point tableMove() {
+        if (boardSize == SolutionTable.SIZE && solutionTable != null)
+            return solutionTable.getBestMove(board, computersMark);
+        else if (boardSize == Tablebase.SIZE && tablebase != null)
+            return tablebase.getBestMove(board, computersMark);
+        return null;
+    }
     /**
      * Prompt user for game board size of N length
      * @return the contructed game board of N length
      */
     private Board askBoardSize(){
         boolean valid_response = false;
-        Integer rsp;
+        Matcher rsp;
+        int rows;
+        int cols;
+        int inARow;
         do {
             // Prints newline character
             System.out.println();
-            System.out.print("What is the board size you would like to explore:  ");
-            input = keyboard.next();            
-            if (!input.matches("^[0-9]*$"))
-                valid_response = false;
-            else
-            {
-                valid_response = true;                
-            }
-            
-            rsp = Integer.valueOf(input);
+            System.out.print("What is the board size you would like to explore (N, MxN or MxN,K for K in a row):  ");
+            input = keyboard.next().trim().toLowerCase();
+            rsp = BOARD_SHAPE.matcher(input);
+            valid_response = rsp.matches();
+            rows = valid_response ? Integer.parseInt(rsp.group(1)) : 0;
+            cols = valid_response && rsp.group(2) != null ? Integer.parseInt(rsp.group(2)) : rows;
+            inARow = valid_response && rsp.group(3) != null ? Integer.parseInt(rsp.group(3)) : Math.min(rows, cols);
+            // a line of K marks has to fit on the board, and the opening move
+            // of the computer is taken from the rows before the last
+            valid_response = rows > 1 && cols > 0 && inARow > 0 && inARow <= Math.max(rows, cols);
         } while (!valid_response);
         System.out.println();
-        return new Board(new char[rsp][rsp]);
+        return new Board(new char[rows][cols], inARow);
     }
 
     /**
@@ -96,7 +308,7 @@ public class TicTacToe {
      * @return		The value of the row.
      */
     public int getRow(int sub) {
-        return (sub / this.boardSize) + 1;
+        return (sub / this.columns) + 1;
     }
     /**
      * The getCol method accepts the value of the subscript
@@ -105,7 +317,7 @@ public class TicTacToe {
      * @return		The value of the column.
      */
     public int getCol(int sub) {
-        return (sub % this.boardSize) + 1;
+        return (sub % this.columns) + 1;
     }
     /**
      * The firstMove method will randomly decide who goes first.
@@ -158,8 +370,7 @@ public class TicTacToe {
                 sub = rand.nextInt(board.getGameBoard().length-1);
                 test = sub % 2;
             } while (test == 1 || sub == (board.getGameBoard().length));
-            Point point = new Point(getRow(sub), getCol(sub));
-            point.setBoardSize(this.boardSize);
+            Point point = board.getPoint(sub);
             // add the next move to list of last moves played
             board.setLastMove(point);
             board.placeAMove(point, computersMark);
@@ -167,7 +378,7 @@ public class TicTacToe {
             System.out.printf("I marked %s at row (1-%d): %d",computersMark, this.boardSize, point.getRow());
             // Prints newline character
             System.out.println();
-            System.out.printf("\t    column(1-%d): %d",this.boardSize, point.getCol());
+            System.out.printf("\t    column(1-%d): %d",this.columns, point.getCol());
             System.out.println();
             board.displayBoard();
             turn = USERS_TURN;
@@ -212,8 +423,7 @@ public class TicTacToe {
      * @throws SecurityException throws security exception
      */
     public void humanMove() throws SecurityException, IOException {
-        Point point = new Point();
-        point.setBoardSize(this.boardSize);
+        Point point;
         boolean emptySubscript;
         int row;
         int col;
@@ -221,18 +431,17 @@ public class TicTacToe {
             do {
                 System.out.printf("YOUR TURN, enter %s at row(1-%d):  ",humansMark,this.boardSize);
                 input = keyboard.next().trim();
-            } while (!input.matches(inputValidator) && Integer.parseInt(input) < board.getGameBoard().length);
+            } while (!input.matches(inputValidator) || Integer.parseInt(input) < 1 || Integer.parseInt(input) > this.boardSize);
             row = Integer.parseInt(input);
 
             do {
-                System.out.printf("Now enter column number(1-%d):  ",this.boardSize);
+                System.out.printf("Now enter column number(1-%d):  ",this.columns);
                 input = keyboard.next().trim();
-            } while (!input.matches(inputValidator) && Integer.parseInt(input) < board.getGameBoard().length);
+            } while (!input.matches(inputValidator) || Integer.parseInt(input) < 1 || Integer.parseInt(input) > this.columns);
             col = Integer.parseInt(input);
-            // Finds subscript value from row and column
-            point.getSub(row, col);
-            // point = new Point(point.getRow(),point.getCol());
-            logger.debug("Point: "+point.toString());
+            // Finds the cell from row and column
+            point = board.getPoint(row, col);
+            logger.debug("Point: {}", point);
             emptySubscript = (board.placeAMove(point, humansMark));
             if (!emptySubscript) {
                 System.out.print("\nInvalid selection, ROW " + row +
@@ -250,19 +459,80 @@ public class TicTacToe {
         board.displayBoard();
     }
     /**
-     * The computerMove method initiates the minimax algorithm
-     * and plays the best possible move for win or draw.
+     * Finds the computer move with the engine of the search mode, after the
+     * table, tactical and threat-space shortcuts, and assigns it to the
+     * game board
+     * @return	1 for a proven win, -1 for a proven loss, 0 for a draw or a
+     * 			move whose value is not proven
+     */
+    private int engineMove() {
+        Point tableMove = searchMode == SearchMode.TABLE ? tableMove() : null;
+        Point tacticalMove = tableMove == null ? tactics.find(computersMark) : null;
+        Point threatMove = tableMove == null && tacticalMove == null && threatSearch != null
+            ? threatSearch.search(computersMark) : null;
+        int score = AlphaBeta.DRAW_SCORE;
+        if (tableMove != null) {
+            board.setComputerMove(tableMove);
+            logger.debug("Solution table move: {}", tableMove);
+        } else if (tacticalMove != null) {
+            board.setComputerMove(tacticalMove);
+            if (tactics.getWinningCell(computersMark) >= 0)
+                score = AlphaBeta.WIN_SCORE;
+            logger.debug("Tactical move: {} | Short-circuited searches: {} of {} (wins: {}, blocks: {})", tacticalMove,
+                tactics.getShortCircuitCount(), tactics.getLookupCount(), tactics.getWinCount(), tactics.getBlockCount());
+        } else if (threatMove != null) {
+            board.setComputerMove(threatMove);
+            logger.debug("Threat-space move: {} | Nodes: {}", threatMove, threatSearch.getNodeCount());
+        } else if (searchMode == SearchMode.MCTS) {
+            monteCarlo.search(computersMark);
+            logger.debug("MCTS playouts: {}", monteCarlo.getPlayoutCount());
+        } else if (searchMode == SearchMode.LAZY_SMP) {
+            score = lazySmp.search(computersMark);
+            logger.debug("Lazy SMP depth: {} | Nodes: {}", lazySmp.getCompletedDepth(), lazySmp.getNodeCount());
+        } else if (searchMode == SearchMode.PARALLEL) {
+            score = parallel.search(computersMark);
+            logger.debug("Parallel search nodes: {}", parallel.getNodeCount());
+        } else if (searchMode == SearchMode.ITERATIVE_DEEPENING) {
+            score = deepening.search(computersMark);
+            logger.debug("Iterative deepening depth: {} | Nodes: {}", deepening.getCompletedDepth(), deepening.getAlphaBeta().getNodeCount());
+        } else if (searchMode == SearchMode.PVS) {
+            score = pvs.search(computersMark);
+            logger.debug("PVS depth: {} | Nodes: {} | PV: {}", pvs.getCompletedDepth(),
+                pvs.getAlphaBeta().getNodeCount(), Arrays.toString(pvs.getPrincipalVariation()));
+        } else {
+            score = alphaBeta.search(computersMark);
+            logger.debug("Alpha-beta nodes: {} | Skipped moves: {}", alphaBeta.getNodeCount(), alphaBeta.getSkippedMoveCount());
+        }
+        // Evaluations of unfinished searches are not a proven result
+        return score >= AlphaBeta.WIN_SCORE ? 1 : score <= -AlphaBeta.WIN_SCORE ? -1 : 0;
+    }
+    /**
+     * The computerMove method initiates the search selected by the search
+     * mode and plays the best possible move for win or draw. Minimax sets
+     * the score and depth of the move itself and writes the game data of
+     * every position; the other engines answer forced moves first and have
+     * their result set here.
      * @throws IOException throws IOException
      */
     public void computerMove() throws IOException {
-        mini.minimax(0, computersMark);
+        if (searchMode == SearchMode.MINIMAX) {
+            mini.resetNodeCount();
+            mini.minimax(0, computersMark);
+            logger.debug("Minimax nodes: {}", mini.getNodeCount());
+        } else {
+            // Counted before the move is played, as Minimax does
+            int emptyCells = board.getEmptyCellCount();
+            board.setComputerScore(engineMove());
+            board.setDepth(emptyCells);
+            print.setMax(board.getComputerScore());
+        }
         print.printResults();
         System.out.println();
         System.out.println();
         System.out.printf("MY TURN, I marked %s at row (1-%d): %d",computersMark, this.boardSize, board.getComputerMove().getRow());
         // Prints newline character
         System.out.println();
-        System.out.printf("\t\t    column(1-%d): %d",this.boardSize, board.getComputerMove().getCol());
+        System.out.printf("\t\t    column(1-%d): %d",this.columns, board.getComputerMove().getCol());
         // add the next move to list of last moves played
         board.setLastMove(board.getComputerMove());
         board.placeAMove(board.getComputerMove(), computersMark);
@@ -324,6 +594,8 @@ public class TicTacToe {
             // Determines winner or draw if game is over
             winnerExist();
         }while (playAgain());
+        // The trace holds the records of every game played
+        closeSearchTrace();
     }
     ///////////////////////////////////////////////////////////////////////////
     // public static void main(String[] arg) throws IOException 
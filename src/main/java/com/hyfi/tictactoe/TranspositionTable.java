@@ -0,0 +1,257 @@
+package com.hyfi.tictactoe;
+// Imports
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.Arrays;
+
+/**
+ * The TranspositionTable class caches search results by the Zobrist hash of the position, so a position reached through different move orders is only searched once. The table has a fixed number of entries; each bucket holds a depth-preferred slot and an always-replace slot. Every entry is packed into a single long holding the score, bound type, search depth and best move.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public class TranspositionTable {
+    private static final Logger logger = LoggerFactory.getLogger(TranspositionTable.class);
+
+    // Default number of entries (2^18 entries use 4 MB)
+    public static final int DEFAULT_CAPACITY = 1 << 18;
+    // Value returned by probe when the position is not in the table
+    public static final long MISS = 0L;
+    // Bound types of a stored score
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+
+    // Layout of a packed entry:
+    // bits 0-31 score | bits 32-47 move + 1 | bits 48-55 depth | bits 56-57 bound | bits 58-63 generation
+    private static final int MOVE_SHIFT = 32;
+    private static final int DEPTH_SHIFT = 48;
+    private static final int BOUND_SHIFT = 56;
+    private static final int GENERATION_SHIFT = 58;
+    // Largest depth an entry can hold, also used for proven wins and losses
+    public static final int MAX_DEPTH = 0xFF;
+    private static final int GENERATION_MASK = 0x3F;
+
+    // Check words (Zobrist key XOR packed entry) and packed entries, two
+    // consecutive slots per bucket. A slot is only valid when its check word
+    // XOR its entry gives back the key, which catches torn concurrent writes.
+    protected final long[] keys;
+    protected final long[] entries;
+    // Mask selecting the bucket from a key
+    protected final int bucketMask;
+    // Generation of the current search, entries from older searches are replaced first
+    protected int generation;
+    // Statistics since the last reset
+    protected long probes;
+    protected long hits;
+    protected long stores;
+    protected long evictions;
+
+    /**
+     * Creates a table with the default number of entries
+     */
+    public TranspositionTable() {
+        this(DEFAULT_CAPACITY);
+    }
+    /**
+     * Creates a table holding up to the given number of entries. The
+     * capacity is rounded down to a power of two, with a minimum of 2.
+     * @param capacity the maximum number of entries
+     */
+    public TranspositionTable(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity));
+        this.keys = new long[size];
+        this.entries = new long[size];
+        this.bucketMask = (size >> 1) - 1;
+        logger.debug("Transposition table with {} entries | {} bytes", size, getMemoryFootprint());
+    }
+    /**
+     * Looks up a position
+     * @param key the Zobrist hash of the position
+     * @return the packed entry, or MISS if the position is not stored
+     */
+    public long probe(long key) {
+        probes++;
+        int slot = bucketOf(key);
+        if ((keys[slot] ^ entries[slot]) == key && entries[slot] != MISS) {
+            hits++;
+            return entries[slot];
+        }
+        if ((keys[slot + 1] ^ entries[slot + 1]) == key && entries[slot + 1] != MISS) {
+            hits++;
+            return entries[slot + 1];
+        }
+        return MISS;
+    }
+    /**
+     * Stores the result of a search. The depth-preferred slot is replaced
+     * when it holds the same position, an entry of an older search or a
+     * shallower search; otherwise the always-replace slot is used.
+     * @param key the Zobrist hash of the position
+     * @param depth the remaining depth the score was searched to
+     * @param score the score of the position for the player to move
+     * @param bound EXACT, LOWER_BOUND or UPPER_BOUND
+     * @param move the subscript of the best move, -1 if none
+     */
+    public void store(long key, int depth, int score, int bound, int move) {
+        stores++;
+        int slot = bucketOf(key);
+        if (!replaceable(key, keys[slot], entries[slot], depth))
+            slot++;
+        if (entries[slot] != MISS && (keys[slot] ^ entries[slot]) != key)
+            evictions++;
+        long entry = pack(depth, score, bound, move, generation);
+        keys[slot] = key ^ entry;
+        entries[slot] = entry;
+    }
+    /**
+     * Checks if the depth-preferred slot of a bucket may be overwritten:
+     * it is empty, holds the same position, an entry of an older search or
+     * an entry searched no deeper than the new one.
+     * @param key the Zobrist hash of the position to store
+     * @param check the check word of the slot
+     * @param current the packed entry of the slot
+     * @param depth the depth of the position to store
+     * @return true if the slot may be overwritten
+     */
+    protected boolean replaceable(long key, long check, long current, int depth) {
+        return current == MISS || (check ^ current) == key || generationOf(current) != generation
+            || depthOf(current) <= depth;
+    }
+    /**
+     * Starts a new search, older entries become the first to be replaced
+     */
+    public void newSearch() {
+        generation = (generation + 1) & GENERATION_MASK;
+    }
+    /**
+     * Removes every entry and resets the statistics
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(entries, MISS);
+        generation = 0;
+        resetStatistics();
+    }
+    /**
+     * Resets the probe, hit, store and eviction counters
+     */
+    public void resetStatistics() {
+        probes = 0;
+        hits = 0;
+        stores = 0;
+        evictions = 0;
+    }
+    /**
+     * Gets the number of entries the table holds
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return entries.length;
+    }
+    /**
+     * Gets the memory used by the entries
+     * @return the footprint in bytes
+     */
+    public long getMemoryFootprint() {
+        return (long) keys.length * Long.BYTES + (long) entries.length * Long.BYTES;
+    }
+    /**
+     * Gets the share of probes that found their position
+     * @return the hit rate between 0 and 1
+     */
+    public double getHitRate() {
+        return probes == 0 ? 0.0 : (double) hits / probes;
+    }
+    /**
+     * Gets the number of probes since the last reset
+     * @return the probe count
+     */
+    public long getProbeCount() {
+        return probes;
+    }
+    /**
+     * Gets the number of probes that found their position
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits;
+    }
+    /**
+     * Gets the number of stored results
+     * @return the store count
+     */
+    public long getStoreCount() {
+        return stores;
+    }
+    /**
+     * Gets the number of entries overwritten by another position
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return evictions;
+    }
+    /**
+     * Gets the first slot of the bucket of a key
+     * @param key the Zobrist hash of the position
+     * @return the index of the first slot
+     */
+    protected int bucketOf(long key) {
+        return (int) ((key ^ (key >>> 32)) & bucketMask) << 1;
+    }
+    /**
+     * Packs a search result into a single long
+     * @param depth the remaining depth
+     * @param score the score
+     * @param bound the bound type
+     * @param move the best move, -1 if none
+     * @param generation the generation of the search
+     * @return the packed entry
+     */
+    protected static long pack(int depth, int score, int bound, int move, int generation) {
+        return (score & 0xFFFFFFFFL)
+            | ((long) ((move + 1) & 0xFFFF) << MOVE_SHIFT)
+            | ((long) Math.min(Math.max(depth, 0), MAX_DEPTH) << DEPTH_SHIFT)
+            | ((long) (bound & 0x3) << BOUND_SHIFT)
+            | ((long) (generation & GENERATION_MASK) << GENERATION_SHIFT);
+    }
+    /**
+     * Gets the score of a packed entry
+     * @param entry the packed entry
+     * @return the score for the player to move
+     */
+    public static int scoreOf(long entry) {
+        return (int) entry;
+    }
+    /**
+     * Gets the best move of a packed entry
+     * @param entry the packed entry
+     * @return the subscript of the best move, -1 if none
+     */
+    public static int moveOf(long entry) {
+        return (int) ((entry >>> MOVE_SHIFT) & 0xFFFF) - 1;
+    }
+    /**
+     * Gets the search depth of a packed entry
+     * @param entry the packed entry
+     * @return the remaining depth the score was searched to
+     */
+    public static int depthOf(long entry) {
+        return (int) ((entry >>> DEPTH_SHIFT) & MAX_DEPTH);
+    }
+    /**
+     * Gets the bound type of a packed entry
+     * @param entry the packed entry
+     * @return EXACT, LOWER_BOUND or UPPER_BOUND
+     */
+    public static int boundOf(long entry) {
+        return (int) ((entry >>> BOUND_SHIFT) & 0x3);
+    }
+    /**
+     * Gets the generation of a packed entry
+     * @param entry the packed entry
+     * @return the generation of the search that stored it
+     */
+    protected static int generationOf(long entry) {
+        return (int) ((entry >>> GENERATION_SHIFT) & GENERATION_MASK);
+    }
+}
@@ -0,0 +1,91 @@
+package com.hyfi.tictactoe;
+// Imports
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The AllocationBudgetTest class checks that a warmed up search allocates nothing per position, so the garbage collector stays quiet while the computer plays. It measures the bytes the test thread allocates, with com.sun.management.ThreadMXBean, across a full 3x3 Minimax search in the allocation-free mode and a depth-limited 4x4 alpha-beta search, after a few warm-up runs of each. Both searches measure 0 bytes today; the budget leaves BUDGET_BYTES of headroom for one-off allocations the virtual machine may make on the thread, such as class loading or deoptimization, while a single object per position would cost well over a megabyte across the 95,000 positions of the 3x3 search.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public class AllocationBudgetTest {
+
+    // Bytes a measured search may allocate
+    private static final long BUDGET_BYTES = 4096;
+    // Searches run before measuring, so the hot paths are compiled
+    private static final int WARM_UP_RUNS = 5;
+    // Depth of the 4x4 alpha-beta search
+    private static final int DEPTH_4X4 = 6;
+
+    // The allocation counters of the current thread
+    private com.sun.management.ThreadMXBean threads;
+
+    /**
+     * Skips the tests on a virtual machine without thread allocation counters
+     */
+    @Before
+    public void setUp() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+    /**
+     * A full 3x3 Minimax search in the allocation-free mode stays within the budget
+     * @throws IOException never in the allocation-free mode
+     */
+    @Test
+    public void minimax3x3StaysWithinBudget() throws IOException {
+        Board board = emptyBoard(3);
+        Minimax minimax = new Minimax(board);
+        minimax.setAllocationFree(true);
+        for (int run = 0; run < WARM_UP_RUNS; run++)
+            minimax.minimax(0, board.getComputerMark());
+        long start = allocatedBytes();
+        minimax.minimax(0, board.getComputerMark());
+        assertThat(allocatedBytes() - start).as("bytes allocated by a full 3x3 Minimax search").isLessThanOrEqualTo(BUDGET_BYTES);
+    }
+    /**
+     * A depth-limited 4x4 alpha-beta search stays within the budget
+     */
+    @Test
+    public void alphaBeta4x4StaysWithinBudget() {
+        Board board = emptyBoard(4);
+        AlphaBeta alphaBeta = new AlphaBeta(board);
+        for (int run = 0; run < WARM_UP_RUNS; run++)
+            alphaBeta.score(board.getComputerMark(), DEPTH_4X4);
+        long start = allocatedBytes();
+        alphaBeta.score(board.getComputerMark(), DEPTH_4X4);
+        assertThat(allocatedBytes() - start).as("bytes allocated by a depth %d 4x4 alpha-beta search", DEPTH_4X4)
+            .isLessThanOrEqualTo(BUDGET_BYTES);
+    }
+    /**
+     * Gets the bytes allocated by the current thread so far
+     * @return the allocated bytes
+     */
+    private long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    /**
+     * Creates an empty square board where X is the computer
+     * @param size the board size
+     * @return the board
+     */
+    private static Board emptyBoard(int size) {
+        char[][] gameBoard = new char[size][size];
+        for (char[] row : gameBoard)
+            Arrays.fill(row, ' ');
+        Board board = new Board(gameBoard);
+        board.setComputerMark('X');
+        board.setHumanMark('O');
+        return board;
+    }
+}
@@ -0,0 +1,127 @@
+package com.hyfi.tictactoe;
+// Imports
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * The BoardMakeUnmakeTest class checks that the derived state Board keeps up to date on every move matches the state rebuilt from the marks alone. Random sequences of makeMove and unmakeMove are played on square, rectangular and k-in-a-row boards, with and without a candidate radius, and after every step the board is compared with a copy made by the copy constructor, which rebuilds the bitboards, the Zobrist and symmetry hashes, the line counters, the evaluation, the empty-cell and candidate sets and the position index from the char game board.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public class BoardMakeUnmakeTest {
+
+    // Random games played on each board shape
+    private static final int GAMES = 40;
+    // Seed of the random moves, so a failure can be replayed
+    private static final long SEED = 10;
+    // Board shapes: rows, columns, win length (0 for the shorter side) and candidate radius
+    private static final int[][] SHAPES = { { 3, 3, 0, 0 }, { 4, 4, 0, 0 }, { 4, 6, 3, 0 }, { 5, 5, 4, 1 }, { 9, 9, 5, 2 } };
+
+    /**
+     * Every step of random games leaves the board equal to its rebuilt copy,
+     * and taking every move back gives the empty board
+     */
+    @Test
+    public void makeAndUnmakeKeepTheDerivedState() {
+        Random random = new Random(SEED);
+        for (int[] shape : SHAPES) {
+            Board board = emptyBoard(shape);
+            Board empty = emptyBoard(shape);
+            for (int game = 0; game < GAMES; game++) {
+                char player = 'X';
+                while (board.getEmptyCellCount() > 0) {
+                    // Take a move back now and then, so unmakeMove runs at every depth
+                    if (board.getUndoDepth() > 0 && random.nextInt(3) == 0) {
+                        board.unmakeMove();
+                    } else {
+                        int sub = board.getEmptyCell(random.nextInt(board.getEmptyCellCount()));
+                        assertThat(board.makeMove(board.getPoint(sub), player)).isTrue();
+                    }
+                    player = player == 'X' ? 'O' : 'X';
+                    assertSameState(board, new Board(board), shape);
+                }
+                while (board.getUndoDepth() > 0)
+                    board.unmakeMove();
+                assertSameState(board, empty, shape);
+            }
+        }
+    }
+    /**
+     * Making a move on an occupied cell and removing an empty cell leave the
+     * board as it was
+     */
+    @Test
+    public void rejectedMovesKeepTheDerivedState() {
+        int[] shape = SHAPES[4];
+        Board board = emptyBoard(shape);
+        board.makeMove(board.getPoint(40), 'X');
+        board.makeMove(board.getPoint(41), 'O');
+        Board before = new Board(board);
+        assertThat(board.makeMove(board.getPoint(40), 'O')).isFalse();
+        assertSameState(board, before, shape);
+        board.removeAMove(board.getPoint(0));
+        board.removeAMove(board.getPoint(42));
+        assertSameState(board, before, shape);
+        assertThat(board.getUndoDepth()).isEqualTo(2);
+    }
+    /**
+     * Compares the marks and every piece of derived state of two boards
+     * @param board		The board played on
+     * @param expected	The board with the same marks and rebuilt state
+     * @param shape		The shape of both boards
+     */
+    private static void assertSameState(Board board, Board expected, int[] shape) {
+        String position = Arrays.deepToString(board.getGameBoard()) + " " + Arrays.toString(shape);
+        int cells = shape[0] * shape[1];
+        assertThat(board.getGameBoard()).as("marks of %s", position).isEqualTo(expected.getGameBoard());
+        assertThat(board.getBitboard('X')).as("X bitboard of %s", position).isEqualTo(expected.getBitboard('X'));
+        assertThat(board.getBitboard('O')).as("O bitboard of %s", position).isEqualTo(expected.getBitboard('O'));
+        assertThat(board.getZobristHash()).as("Zobrist hash of %s", position).isEqualTo(expected.getZobristHash());
+        for (int t = 0; t < Symmetry.TRANSFORMS; t++)
+            assertThat(board.getSymmetryHash(t, 'X')).as("symmetry hash %d of %s", t, position)
+                .isEqualTo(expected.getSymmetryHash(t, 'X'));
+        LineTable lines = board.getLineTable();
+        for (int line = 0; line < lines.getLineCount(); line++) {
+            assertThat(board.getLineCount('X', line)).as("X count of line %d of %s", line, position)
+                .isEqualTo(expected.getLineCount('X', line));
+            assertThat(board.getLineCount('O', line)).as("O count of line %d of %s", line, position)
+                .isEqualTo(expected.getLineCount('O', line));
+        }
+        assertThat(board.getEvaluation('X')).as("evaluation of %s", position).isEqualTo(expected.getEvaluation('X'));
+        assertThat(board.getPositionIndex()).as("position index of %s", position).isEqualTo(expected.getPositionIndex());
+        assertThat(emptyCells(board, cells)).as("empty cells of %s", position).isEqualTo(emptyCells(expected, cells));
+        assertThat(board.getCandidateCount()).as("candidate count of %s", position).isEqualTo(expected.getCandidateCount());
+        for (int sub = 0; sub < cells; sub++)
+            assertThat(board.isCandidate(sub)).as("candidate %d of %s", sub, position).isEqualTo(expected.isCandidate(sub));
+    }
+    /**
+     * Marks the cells of the empty-cell set, whose order depends on the moves played
+     * @param board	The board
+     * @param cells	The number of cells of the board
+     * @return		true for every subscript in the set
+     */
+    private static boolean[] emptyCells(Board board, int cells) {
+        boolean[] empty = new boolean[cells];
+        for (int i = 0; i < board.getEmptyCellCount(); i++)
+            empty[board.getEmptyCell(i)] = true;
+        return empty;
+    }
+    /**
+     * Creates an empty board of a shape
+     * @param shape rows, columns, win length and candidate radius
+     * @return the board
+     */
+    private static Board emptyBoard(int[] shape) {
+        char[][] gameBoard = new char[shape[0]][shape[1]];
+        for (char[] row : gameBoard)
+            Arrays.fill(row, ' ');
+        Board board = new Board(gameBoard, shape[2]);
+        board.setCandidateRadius(shape[3]);
+        board.setComputerMark('X');
+        board.setHumanMark('O');
+        return board;
+    }
+}
@@ -0,0 +1,206 @@
+package com.hyfi.tictactoe;
+// Imports
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * The SearchAgreementTest class checks that every engine plays the move the plain Minimax search plays on the 3x3 board. It visits all 4,520 positions reachable from the empty board with X to move first that are not yet decided, takes the game value and move of Minimax for the player to move, and compares the alpha-beta search under every move ordering, the table of solved positions, the root-split parallel search and the df-pn solver against it. Minimax only picks a move when one wins or draws, so moves are compared on those positions and values on all of them. It also reports the nodes alpha-beta visits against Minimax on the empty board.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public class SearchAgreementTest {
+
+    // Number of undecided positions reachable on the 3x3 board
+    private static final int REACHABLE_POSITIONS = 4520;
+
+    // Base-3 indexes of the undecided reachable positions, in the order found
+    private static int[] positions;
+    // Game value and move of Minimax for the player to move of each position
+    private static int[] values;
+    private static int[] moves;
+
+    /**
+     * Collects the positions and searches each once with Minimax
+     * @throws IOException never in the allocation-free mode
+     */
+    @BeforeClass
+    public static void solveWithMinimax() throws IOException {
+        List<Integer> found = new ArrayList<>();
+        collect(emptyBoard(), 'X', new BitSet(), found);
+        positions = found.stream().mapToInt(Integer::intValue).toArray();
+        values = new int[positions.length];
+        moves = new int[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            Board board = boardOf(positions[i]);
+            Minimax minimax = new Minimax(board);
+            minimax.setAllocationFree(true);
+            values[i] = minimax.minimax(0, board.getComputerMark());
+            moves[i] = values[i] >= 0 ? subOf(board.getComputerMove()) : -1;
+        }
+    }
+    /**
+     * Every undecided reachable position is visited once
+     */
+    @Test
+    public void visitsEveryReachablePosition() {
+        assertThat(positions).hasSize(REACHABLE_POSITIONS);
+    }
+    /**
+     * Alpha-beta returns the value and move of Minimax under every move ordering
+     */
+    @Test
+    public void alphaBetaMatchesMinimax() {
+        for (MoveOrdering ordering : MoveOrdering.values()) {
+            // One engine per ordering, its table carries over as in a game
+            AlphaBeta alphaBeta = new AlphaBeta(null);
+            alphaBeta.setMoveOrdering(ordering);
+            for (int i = 0; i < positions.length; i++) {
+                Board board = boardOf(positions[i]);
+                alphaBeta.setGameBoard(board);
+                int value = Integer.signum(alphaBeta.search(board.getComputerMark()));
+                assertThat(value).as("%s value of %s", ordering, text(board)).isEqualTo(values[i]);
+                if (values[i] >= 0)
+                    assertThat(subOf(board.getComputerMove())).as("%s move of %s", ordering, text(board)).isEqualTo(moves[i]);
+            }
+        }
+    }
+    /**
+     * The table of solved positions holds the value and move of Minimax
+     */
+    @Test
+    public void solutionTableMatchesMinimax() {
+        SolutionTable table = SolutionTable.getInstance();
+        assertThat(table).as("solution table resource").isNotNull();
+        for (int i = 0; i < positions.length; i++) {
+            Board board = boardOf(positions[i]);
+            int entry = table.lookup(board, board.getComputerMark());
+            assertThat(entry).as("entry of %s", text(board)).isNotEqualTo(SolutionTable.MISS);
+            assertThat(SolutionTable.valueOf(entry)).as("value of %s", text(board)).isEqualTo(values[i]);
+            if (values[i] >= 0)
+                assertThat(SolutionTable.moveOf(entry)).as("move of %s", text(board)).isEqualTo(moves[i]);
+        }
+    }
+    /**
+     * The root-split parallel search returns the value and move of Minimax
+     */
+    @Test
+    public void parallelSearchMatchesMinimax() {
+        for (int i = 0; i < positions.length; i++) {
+            Board board = boardOf(positions[i]);
+            int value = Integer.signum(new ParallelSearch(board).search(board.getComputerMark()));
+            assertThat(value).as("value of %s", text(board)).isEqualTo(values[i]);
+            if (values[i] >= 0)
+                assertThat(subOf(board.getComputerMove())).as("move of %s", text(board)).isEqualTo(moves[i]);
+        }
+    }
+    /**
+     * The df-pn solver proves the value of Minimax
+     */
+    @Test
+    public void proofNumberSearchMatchesMinimax() {
+        ProofResult[] expected = { ProofResult.LOSS, ProofResult.DRAW, ProofResult.WIN };
+        ProofNumberSearch solver = new ProofNumberSearch(null);
+        for (int i = 0; i < positions.length; i++) {
+            Board board = boardOf(positions[i]);
+            solver.setGameBoard(board);
+            ProofResult result = solver.solve(board.getComputerMark());
+            assertThat(result).as("result of %s", text(board)).isEqualTo(expected[values[i] + 1]);
+        }
+    }
+    /**
+     * Alpha-beta finds the Minimax move on the empty board with fewer nodes
+     * @throws IOException never in the allocation-free mode
+     */
+    @Test
+    public void alphaBetaVisitsFewerNodesThanMinimax() throws IOException {
+        Board board = emptyBoard();
+        Minimax minimax = new Minimax(board);
+        minimax.setAllocationFree(true);
+        minimax.minimax(0, 'X');
+        int move = subOf(board.getComputerMove());
+        AlphaBeta alphaBeta = new AlphaBeta(board);
+        alphaBeta.search('X');
+        System.out.printf("Empty 3x3 board | Minimax nodes: %d | Alpha-beta nodes: %d | Skipped moves: %d%n",
+            minimax.getNodeCount(), alphaBeta.getNodeCount(), alphaBeta.getSkippedMoveCount());
+        assertThat(subOf(board.getComputerMove())).isEqualTo(move);
+        assertThat(alphaBeta.getNodeCount()).isLessThan(minimax.getNodeCount());
+    }
+    /**
+     * Collects the undecided positions reachable from a board
+     * @param board		The board, left as it was
+     * @param player	The mark of the player to move
+     * @param seen		The base-3 indexes already visited
+     * @param found		The undecided positions found so far
+     */
+    private static void collect(Board board, char player, BitSet seen, List<Integer> found) {
+        int index = board.getPositionIndex();
+        if (seen.get(index))
+            return;
+        seen.set(index);
+        if (board.hasPlayerWon('X') || board.hasPlayerWon('O') || board.getEmptyCellCount() == 0)
+            return;
+        found.add(index);
+        for (int sub = 0; sub < 9; sub++) {
+            Point point = board.getPoint(sub);
+            if (board.makeMove(point, player)) {
+                collect(board, player == 'X' ? 'O' : 'X', seen, found);
+                board.unmakeMove();
+            }
+        }
+    }
+    /**
+     * Creates the board of a base-3 index, with the player to move as the computer
+     * @param index the base-3 index, 1 for X and 2 for O in each cell
+     * @return the board
+     */
+    private static Board boardOf(int index) {
+        char[][] gameBoard = new char[3][3];
+        int marks = 0;
+        for (int sub = 0; sub < 9; sub++, index /= 3) {
+            gameBoard[sub / 3][sub % 3] = " XO".charAt(index % 3);
+            if (index % 3 != 0)
+                marks++;
+        }
+        Board board = new Board(gameBoard);
+        char toMove = marks % 2 == 0 ? 'X' : 'O';
+        board.setComputerMark(toMove);
+        board.setHumanMark(toMove == 'X' ? 'O' : 'X');
+        return board;
+    }
+    /**
+     * Creates an empty 3x3 board where X is the computer
+     * @return the board
+     */
+    private static Board emptyBoard() {
+        char[][] gameBoard = new char[3][3];
+        for (char[] row : gameBoard)
+            Arrays.fill(row, ' ');
+        Board board = new Board(gameBoard);
+        board.setComputerMark('X');
+        board.setHumanMark('O');
+        return board;
+    }
+    /**
+     * Gets the subscript of a point of the 3x3 board
+     * @param point the point
+     * @return the subscript, -1 for null
+     */
+    private static int subOf(Point point) {
+        return point == null ? -1 : point.getRow() * 3 + point.getCol();
+    }
+    /**
+     * Formats a board for the assertion messages
+     * @param board the board
+     * @return the rows of the board
+     */
+    private static String text(Board board) {
+        return Arrays.deepToString(board.getGameBoard());
+    }
+}
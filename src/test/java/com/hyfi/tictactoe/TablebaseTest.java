@@ -0,0 +1,104 @@
+package com.hyfi.tictactoe;
+// Imports
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * The TablebaseTest class builds the 4x4 tablebase into a temporary file, maps it, and checks it against a full alpha-beta search on random positions of up to twelve marks: the stored value of every position is the game value the search finds, and the move the tablebase picks keeps that value. The build solves all 3^16 position indexes and takes several seconds on one core.
+ * @version 2.2
+ * @since 2019-04-12
+ */
+public class TablebaseTest {
+
+    // Number of random undecided positions checked
+    private static final int POSITIONS = 389;
+    // Most marks placed on a random position
+    private static final int MAX_MARKS = 12;
+    // Seed of the random positions, so a failure can be replayed
+    private static final long SEED = 5;
+
+    // The tablebase file and the tablebase mapped from it
+    private static Path file;
+    private static Tablebase tablebase;
+
+    /**
+     * Builds and maps the tablebase
+     * @throws IOException if the temporary file cannot be written or mapped
+     */
+    @BeforeClass
+    public static void buildTablebase() throws IOException {
+        file = Files.createTempFile("tablebase4x4", ".bin");
+        TablebaseBuilder.write(file, new TablebaseBuilder().build());
+        tablebase = Tablebase.open(file);
+    }
+    /**
+     * Deletes the tablebase file
+     * @throws IOException if the file cannot be deleted
+     */
+    @AfterClass
+    public static void deleteTablebase() throws IOException {
+        tablebase = null;
+        if (file != null)
+            Files.deleteIfExists(file);
+    }
+    /**
+     * The stored value is the game value and the picked move keeps it
+     */
+    @Test
+    public void valuesAndMovesMatchAlphaBeta() {
+        Random random = new Random(SEED);
+        AlphaBeta alphaBeta = new AlphaBeta(null);
+        int checked = 0;
+        while (checked < POSITIONS) {
+            Board board = randomPosition(random);
+            if (board == null)
+                continue;
+            checked++;
+            char player = board.getComputerMark();
+            alphaBeta.setGameBoard(board);
+            int value = Integer.signum(alphaBeta.search(player));
+            String position = Arrays.deepToString(board.getGameBoard());
+            assertThat(Tablebase.valueOf(tablebase.probe(board, player))).as("value of %s", position).isEqualTo(value);
+            Point move = tablebase.getBestMove(board, player);
+            assertThat(move).as("move of %s", position).isNotNull();
+            board.makeMove(move, player);
+            int valueAfter = board.isWinningMove(move) ? 1
+                : board.getEmptyCellCount() == 0 ? 0
+                : -Tablebase.valueOf(tablebase.probe(board.getPositionIndex()));
+            board.unmakeMove();
+            assertThat(valueAfter).as("value after %s on %s", move, position).isEqualTo(value);
+        }
+    }
+    /**
+     * Plays random moves from the empty board, with the player to move as
+     * the computer
+     * @param random the source of the moves
+     * @return the board, null if the game was decided
+     */
+    private static Board randomPosition(Random random) {
+        char[][] gameBoard = new char[Tablebase.SIZE][Tablebase.SIZE];
+        for (char[] row : gameBoard)
+            Arrays.fill(row, ' ');
+        Board board = new Board(gameBoard);
+        char player = 'X';
+        int marks = random.nextInt(MAX_MARKS + 1);
+        for (int m = 0; m < marks; m++) {
+            Point point = board.getPoint(board.getEmptyCell(random.nextInt(board.getEmptyCellCount())));
+            board.makeMove(point, player);
+            player = player == 'X' ? 'O' : 'X';
+            if (board.isWinningMove(point))
+                return null;
+        }
+        board.setComputerMark(player);
+        board.setHumanMark(player == 'X' ? 'O' : 'X');
+        return board;
+    }
+}